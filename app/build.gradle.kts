@@ -8,6 +8,9 @@
 plugins {
     // Apply the application plugin to add support for building a CLI application in Java.
     application
+
+    // Apply the JMH plugin to add the 'jmh' source set and task for the benchmarks in src/jmh/java.
+    alias(libs.plugins.jmh)
 }
 
 repositories {
@@ -40,7 +43,25 @@ application {
     mainClass = "ch.zhaw.it.pm2.racetrack.Racetrack"
 }
 
+tasks.register<JavaExec>("compileTracks") {
+    description = "Compiles the text tracks to the binary track format."
+    group = "application"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "ch.zhaw.it.pm2.racetrack.CompiledTrackFile"
+}
+
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
 }
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    // Report throughput and average latency, and the allocation rate using the gc profiler.
+    benchmarkMode = listOf("thrpt", "avgt")
+    timeUnit = "us"
+    profilers = listOf("gc")
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+}
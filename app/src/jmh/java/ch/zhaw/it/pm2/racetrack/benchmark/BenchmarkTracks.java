@@ -0,0 +1,75 @@
+package ch.zhaw.it.pm2.racetrack.benchmark;
+
+import ch.zhaw.it.pm2.racetrack.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the track names used as benchmark parameters to track files.
+ *
+ * <p>Names of the bundled tracks (e.g. <code>challenge.txt</code>) are resolved in the track directory
+ * of the {@link Config}. Names in the format <code>synthetic-&lt;width&gt;x&lt;height&gt;</code> generate a
+ * temporary oval track of the given size, with a finish line and two cars on the bottom straight.</p>
+ */
+final class BenchmarkTracks {
+
+    private static final Pattern SYNTHETIC_PATTERN = Pattern.compile("synthetic-(\\d+)x(\\d+)");
+
+    private BenchmarkTracks() {
+    }
+
+    /**
+     * Returns the track file for the given benchmark parameter.
+     *
+     * @param name name of a bundled track or a synthetic track specification
+     * @return the track file
+     * @throws IOException if the synthetic track can not be written
+     */
+    static File resolve(String name) throws IOException {
+        Matcher matcher = SYNTHETIC_PATTERN.matcher(name);
+        if (matcher.matches()) {
+            return createSyntheticTrack(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        }
+        return new File(new Config().getTrackDirectory(), name);
+    }
+
+    /*
+     * Write an oval track of the given size to a temporary file.
+     * The track consists of an outer wall, an inner wall block and a road of a quarter of the height in between.
+     */
+    private static File createSyntheticTrack(int width, int height) throws IOException {
+        if (width < 20 || height < 12) {
+            throw new IllegalArgumentException("Synthetic tracks must be at least 20x12");
+        }
+        int road = height / 4;
+        int finishX = width / 3;
+        StringBuilder sb = new StringBuilder((width + 1) * height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                boolean inner = x > road && x < width - 1 - road && y > road && y < height - 1 - road;
+                if (border || inner) {
+                    sb.append('#');
+                } else if (x == finishX && y > height - 1 - road) {
+                    sb.append('>');
+                } else if (x == finishX + 2 && y == height - 1 - road + 1) {
+                    sb.append('a');
+                } else if (x == finishX + 2 && y == height - 2) {
+                    sb.append('b');
+                } else {
+                    sb.append(' ');
+                }
+            }
+            sb.append('\n');
+        }
+        File file = File.createTempFile("synthetic-" + width + "x" + height + "-", ".txt");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), sb, StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,81 @@
+package ch.zhaw.it.pm2.racetrack.benchmark;
+
+import ch.zhaw.it.pm2.racetrack.Direction;
+import ch.zhaw.it.pm2.racetrack.Game;
+import ch.zhaw.it.pm2.racetrack.InvalidFileFormatException;
+import ch.zhaw.it.pm2.racetrack.NoOpRenderer;
+import ch.zhaw.it.pm2.racetrack.PositionVector;
+import ch.zhaw.it.pm2.racetrack.Track;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Benchmarks for the turn processing of the {@link Game}.
+ *
+ * <p>{@link #doCarTurn()} lets all cars stand still, so the game state stays the same in every invocation
+ * and the benchmark measures the overhead of a turn (car lookup, collision check and switching cars).
+ * {@link #calculatePath(PathState)} measures the path calculation for a move of the given speed.
+ * {@link #tryMoveAndRestore()} measures a what-if move of a search: snapshot, turn and restore.</p>
+ */
+@State(Scope.Benchmark)
+public class GameBenchmark {
+
+    @Param({"challenge.txt", "quarter-mile.txt", "oval-anticlock-right.txt", "oval-clock-up.txt",
+        "synthetic-200x100", "synthetic-2000x1000"})
+    public String trackName;
+
+    private Game game;
+    private int[] snapshot;
+
+    @Setup
+    public void setUp() throws IOException, InvalidFileFormatException {
+        Track track = new Track(BenchmarkTracks.resolve(trackName));
+        game = new Game(track, NoOpRenderer.INSTANCE);
+        snapshot = new int[game.getSnapshotSize()];
+    }
+
+    @Benchmark
+    public int doCarTurn() {
+        game.doCarTurn(Direction.NONE);
+        return game.getCurrentCarIndex();
+    }
+
+    @Benchmark
+    public int tryMoveAndRestore() {
+        game.snapshot(snapshot);
+        game.doCarTurn(Direction.DOWN_RIGHT);
+        int winner = game.getWinner();
+        game.restore(snapshot);
+        return winner;
+    }
+
+    @Benchmark
+    public List<PositionVector> calculatePath(PathState path) {
+        return game.calculatePath(path.start, path.end);
+    }
+
+    /**
+     * Start and end position of a move with the given speed.
+     */
+    @State(Scope.Benchmark)
+    public static class PathState {
+
+        @Param({"1", "5", "20"})
+        public int speed;
+
+        private PositionVector start;
+        private PositionVector end;
+
+        @Setup
+        public void setUp() {
+            start = new PositionVector(1, 1);
+            end = new PositionVector(1 + speed, 1 + speed / 2);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ch.zhaw.it.pm2.racetrack.benchmark;
+
+import ch.zhaw.it.pm2.racetrack.InvalidFileFormatException;
+import ch.zhaw.it.pm2.racetrack.NoOpRenderer;
+import ch.zhaw.it.pm2.racetrack.Track;
+import ch.zhaw.it.pm2.racetrack.strategy.PathFinderMoveStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.ShortestPathMoveStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Benchmarks for the path search of the {@link PathFinderMoveStrategy} and the {@link ShortestPathMoveStrategy}.
+ *
+ * <p>The search of the {@link PathFinderMoveStrategy} gives up with a {@link NoSuchElementException}, if it runs out of nodes to backtrack to.
+ * This is measured as well, as it is the time the strategy spends before the first move.</p>
+ */
+@State(Scope.Benchmark)
+public class PathFinderBenchmark {
+
+    @Param({"challenge.txt", "quarter-mile.txt", "oval-anticlock-right.txt", "oval-clock-up.txt",
+        "synthetic-200x100"})
+    public String trackName;
+
+    private Track track;
+
+    @Setup
+    public void setUp() throws IOException, InvalidFileFormatException {
+        track = new Track(BenchmarkTracks.resolve(trackName));
+    }
+
+    @Benchmark
+    public Object findPath() {
+        PathFinderMoveStrategy strategy = new PathFinderMoveStrategy(track.getCar(0), track, NoOpRenderer.INSTANCE);
+        try {
+            strategy.findPath();
+            return strategy;
+        } catch (NoSuchElementException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean findShortestPath() {
+        return new ShortestPathMoveStrategy(track.getCar(0), track).findPath();
+    }
+}
@@ -0,0 +1,68 @@
+package ch.zhaw.it.pm2.racetrack.benchmark;
+
+import ch.zhaw.it.pm2.racetrack.CompiledTrackFile;
+import ch.zhaw.it.pm2.racetrack.InvalidFileFormatException;
+import ch.zhaw.it.pm2.racetrack.Track;
+import ch.zhaw.it.pm2.racetrack.TrackLayout;
+import ch.zhaw.it.pm2.racetrack.TrackParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Benchmarks for parsing and rendering a {@link Track}, for loading its {@link CompiledTrackFile compiled file},
+ * and for creating the track of a new race from a shared {@link TrackLayout}.
+ *
+ * <p>The compiled file is written to a temporary file, not next to the track file, so parsing is never replaced
+ * by loading a compiled file.</p>
+ */
+@State(Scope.Benchmark)
+public class TrackBenchmark {
+
+    @Param({"challenge.txt", "quarter-mile.txt", "oval-anticlock-right.txt", "oval-clock-up.txt",
+        "synthetic-200x100", "synthetic-2000x1000"})
+    public String trackName;
+
+    private File trackFile;
+    private File compiledFile;
+    private Track track;
+
+    @Setup
+    public void setUp() throws IOException, InvalidFileFormatException {
+        trackFile = BenchmarkTracks.resolve(trackName);
+        track = new Track(trackFile);
+        compiledFile = File.createTempFile("benchmark-", CompiledTrackFile.EXTENSION);
+        compiledFile.deleteOnExit();
+        try (OutputStream out = Files.newOutputStream(compiledFile.toPath())) {
+            CompiledTrackFile.write(TrackParser.parse(trackFile, Track.MAX_CARS), trackFile.length(),
+                trackFile.lastModified(), out);
+        }
+    }
+
+    @Benchmark
+    public TrackParser.ParsedTrack parseTrack() throws IOException, InvalidFileFormatException {
+        return TrackParser.parse(trackFile, Track.MAX_CARS);
+    }
+
+    @Benchmark
+    public TrackParser.ParsedTrack loadCompiledTrack() throws IOException, InvalidFileFormatException {
+        return CompiledTrackFile.read(compiledFile, Track.MAX_CARS);
+    }
+
+    @Benchmark
+    public Track createTrackFromLayout() {
+        return new Track(track.getLayout());
+    }
+
+    @Benchmark
+    public String renderTrack() {
+        return track.toString();
+    }
+}
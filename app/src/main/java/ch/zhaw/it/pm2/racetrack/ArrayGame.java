@@ -0,0 +1,396 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.given.GameSpecification;
+import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Game engine keeping the state of all cars in primitive arrays (struct of arrays), for simulations with
+ * a very large number of turns.
+ *
+ * <p>The rules are the same as in {@link Game}: the car accelerates, crosses all positions on the path to its next
+ * position, crashes into walls and other active cars, and wins when it crosses the finish line in the correct
+ * direction with one remaining lap, or when it is the last active car. Unlike {@link Game}, the position, velocity,
+ * remaining laps and crash state of the cars are not stored in {@link Car} objects, but in one array per attribute,
+ * indexed by car. So {@link #doCarTurn(Direction)} does not allocate any objects. {@link PositionVector} and
+ * {@link Car} objects are only created on demand, by the methods of the {@link GameSpecification} API and
+ * {@link #getCarSnapshot(int)}.</p>
+ *
+ * <p>The game is created from a shared {@link TrackLayout} and never prints to the terminal. The move strategies
+ * are called by {@link #nextCarMove(int)} and {@link #playUntilFinished(int)}; as there are no {@link Car} objects
+ * which are updated during the game, they must not depend on the state of a {@link Car} of a {@link Track}.</p>
+ *
+ * <p>For collision checks with many cars, the number of active cars on each cell is kept in an array of the size
+ * of the grid. With at most {@link #SCAN_LIMIT} cars, the cars are scanned instead, which needs no additional
+ * memory.</p>
+ */
+public class ArrayGame implements GameSpecification {
+
+    /**
+     * Maximum number of cars for which collisions are checked by scanning all cars instead of using an occupancy
+     * array.
+     */
+    public static final int SCAN_LIMIT = 8;
+
+    private final TrackLayout layout;
+    private final PathTemplateCache pathTemplates;
+    private final int carCount;
+    private final char[] ids;
+    private final int[] positionX;
+    private final int[] positionY;
+    private final int[] velocityX;
+    private final int[] velocityY;
+    private final int[] remainingLaps;
+    private final boolean[] crashed;
+    private final MoveStrategy[] strategies;
+
+    /**
+     * Number of active cars on each cell, row by row, or null if the cars are scanned.
+     */
+    private final int[] activeCarsPerCell;
+
+    private int activeCarCount;
+    private int currentCarIndex;
+    private int winner;
+    private int turnCount;
+
+    private final PathVisitor carMovementVisitor = this::processPositionForCar;
+
+    /**
+     * Creates a game on the given layout, with all cars at their start positions.
+     *
+     * @param layout the layout of the track
+     */
+    public ArrayGame(TrackLayout layout) {
+        this(layout, PathTemplateCache.getDefault());
+    }
+
+    /**
+     * Creates a game on the given layout, with all cars at their start positions.
+     * The paths of the moves are taken from the given template cache.
+     *
+     * @param layout        the layout of the track
+     * @param pathTemplates the cache of precomputed paths, e.g. covering a higher speed than the default
+     */
+    public ArrayGame(TrackLayout layout, PathTemplateCache pathTemplates) {
+        this.layout = layout;
+        this.pathTemplates = pathTemplates;
+        carCount = layout.getCarCount();
+        ids = new char[carCount];
+        positionX = new int[carCount];
+        positionY = new int[carCount];
+        velocityX = new int[carCount];
+        velocityY = new int[carCount];
+        remainingLaps = new int[carCount];
+        crashed = new boolean[carCount];
+        strategies = new MoveStrategy[carCount];
+        activeCarsPerCell = carCount > SCAN_LIMIT ? new int[layout.getWidth() * layout.getHeight()] : null;
+        for (int i = 0; i < carCount; i++) {
+            ids[i] = layout.getCarId(i);
+            positionX[i] = layout.getStartPosition(i).getX();
+            positionY[i] = layout.getStartPosition(i).getY();
+            remainingLaps[i] = 1;
+            if (activeCarsPerCell != null) {
+                activeCarsPerCell[layout.cellIndex(positionX[i], positionY[i])]++;
+            }
+        }
+        activeCarCount = carCount;
+        winner = NO_WINNER;
+    }
+
+    /**
+     * Runs the game until a winner is declared, a move strategy terminates the game by returning null
+     * or the turn limit is reached.
+     *
+     * @param turnLimit maximum number of turns to play
+     * @return the number of turns played
+     */
+    public int playUntilFinished(int turnLimit) {
+        while (winner == NO_WINNER && turnCount < turnLimit) {
+            Direction acceleration = nextCarMove(currentCarIndex);
+            if (acceleration == null) {
+                break;
+            }
+            doCarTurn(acceleration);
+        }
+        return turnCount;
+    }
+
+    @Override
+    public int getCarCount() {
+        return carCount;
+    }
+
+    @Override
+    public int getCurrentCarIndex() {
+        return currentCarIndex;
+    }
+
+    @Override
+    public char getCarId(int carIndex) {
+        return ids[carIndex];
+    }
+
+    /**
+     * {@inheritDoc}
+     * A new {@link PositionVector} is created on every call.
+     */
+    @Override
+    public PositionVector getCarPosition(int carIndex) {
+        return new PositionVector(positionX[carIndex], positionY[carIndex]);
+    }
+
+    /**
+     * {@inheritDoc}
+     * A new {@link PositionVector} is created on every call.
+     */
+    @Override
+    public PositionVector getCarVelocity(int carIndex) {
+        return new PositionVector(velocityX[carIndex], velocityY[carIndex]);
+    }
+
+    /**
+     * Return the column of the position of the specified car, without creating a {@link PositionVector}.
+     *
+     * @param carIndex the zero-based carIndex number
+     * @return the x coordinate of the car
+     */
+    public int getCarX(int carIndex) {
+        return positionX[carIndex];
+    }
+
+    /**
+     * Return the row of the position of the specified car, without creating a {@link PositionVector}.
+     *
+     * @param carIndex the zero-based carIndex number
+     * @return the y coordinate of the car
+     */
+    public int getCarY(int carIndex) {
+        return positionY[carIndex];
+    }
+
+    /**
+     * Return whether the specified car has crashed.
+     *
+     * @param carIndex the zero-based carIndex number
+     * @return true if the car has crashed
+     */
+    public boolean isCarCrashed(int carIndex) {
+        return crashed[carIndex];
+    }
+
+    /**
+     * Creates a {@link Car} holding the current state of the specified car. The car is a detached copy,
+     * it is not updated by further turns and changing it does not affect the game.
+     *
+     * @param carIndex the zero-based carIndex number
+     * @return a new car with the current state of the specified car
+     */
+    public Car getCarSnapshot(int carIndex) {
+        PositionVector position = getCarPosition(carIndex);
+        Car car = new Car(ids[carIndex], position);
+        car.setVelocity(getCarVelocity(carIndex));
+        car.setMoveStrategy(strategies[carIndex]);
+        for (int laps = car.getRemainingLaps(); laps < remainingLaps[carIndex]; laps++) {
+            car.goesOverFinishLineBackwards();
+        }
+        for (int laps = car.getRemainingLaps(); laps > remainingLaps[carIndex]; laps--) {
+            car.goesOverFinishLine();
+        }
+        if (crashed[carIndex]) {
+            car.crash(position);
+        }
+        return car;
+    }
+
+    @Override
+    public void setCarMoveStrategy(int carIndex, MoveStrategy carMoveStrategy) {
+        strategies[carIndex] = carMoveStrategy;
+    }
+
+    @Override
+    public Direction nextCarMove(int carIndex) {
+        return strategies[carIndex].nextMove();
+    }
+
+    @Override
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Return the number of turns played so far.
+     *
+     * @return the number of turns played
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     * No objects are allocated.
+     */
+    @Override
+    public void doCarTurn(Direction acceleration) {
+        if (acceleration == null) {
+            throw new IllegalArgumentException("Illegal acceleration: acceleration cannot be null");
+        }
+        int car = currentCarIndex;
+        turnCount++;
+        if (crashed[car]) {
+            switchToNextActiveCar();
+            return;
+        }
+
+        velocityX[car] += acceleration.vector.getX();
+        velocityY[car] += acceleration.vector.getY();
+        int x = positionX[car];
+        int y = positionY[car];
+        int vx = velocityX[car];
+        int vy = velocityY[car];
+        int length = Math.max(Math.abs(vx), Math.abs(vy));
+        boolean clear = length < layout.getClearance(x, y) && carCount - 1 < length + 1
+            && !hasOtherActiveCarWithin(x, y, length, car);
+        if (!clear) {
+            pathTemplates.traverse(x, y, vx, vy, carMovementVisitor);
+        }
+
+        if (!crashed[car]) {
+            moveCar(car, x + vx, y + vy);
+        }
+        if (activeCarCount == 1) {
+            for (int i = 0; i < carCount; i++) {
+                if (!crashed[i]) {
+                    winner = i;
+                    break;
+                }
+            }
+        }
+        if (winner == NO_WINNER) {
+            switchToNextActiveCar();
+        }
+    }
+
+    /*
+     * Process a position on the path of the current car. Returns true if the car crashed or won at this position.
+     */
+    private boolean processPositionForCar(int x, int y) {
+        int car = currentCarIndex;
+        if (isOccupiedByOtherActiveCar(x, y, car)) {
+            crash(car);
+            return true;
+        }
+        SpaceType spaceType = layout.spaceTypeAt(x, y);
+        return switch (spaceType) {
+            case WALL -> {
+                crash(car);
+                yield true;
+            }
+            case TRACK -> false;
+            case FINISH_LEFT -> crossFinishLine(car, velocityX[car] < 0);
+            case FINISH_RIGHT -> crossFinishLine(car, velocityX[car] > 0);
+            case FINISH_UP -> crossFinishLine(car, velocityY[car] < 0);
+            case FINISH_DOWN -> crossFinishLine(car, velocityY[car] > 0);
+        };
+    }
+
+    /*
+     * Count a crossing of the finish line. Returns true if the car won.
+     */
+    private boolean crossFinishLine(int car, boolean isForward) {
+        if (!isForward) {
+            remainingLaps[car]++;
+            return false;
+        }
+        if (remainingLaps[car] == 1) {
+            winner = car;
+            return true;
+        }
+        remainingLaps[car]--;
+        return false;
+    }
+
+    /*
+     * Mark the car as crashed. It stays at its position, but no longer blocks it.
+     */
+    private void crash(int car) {
+        crashed[car] = true;
+        activeCarCount--;
+        if (activeCarsPerCell != null) {
+            activeCarsPerCell[layout.cellIndex(positionX[car], positionY[car])]--;
+        }
+    }
+
+    /*
+     * Move the car to the position. A winning move may end outside the grid, if the track has no outer wall:
+     * outside the grid the position is not counted, like Track does.
+     */
+    private void moveCar(int car, int x, int y) {
+        if (activeCarsPerCell != null) {
+            if (!layout.isOutOfBounds(positionX[car], positionY[car])) {
+                activeCarsPerCell[layout.cellIndex(positionX[car], positionY[car])]--;
+            }
+            if (!layout.isOutOfBounds(x, y)) {
+                activeCarsPerCell[layout.cellIndex(x, y)]++;
+            }
+        }
+        positionX[car] = x;
+        positionY[car] = y;
+    }
+
+    /*
+     * Check whether an active car other than the given one is on the position. The position may be outside the
+     * grid, if the track has no outer wall: it is checked before the space type. Outside the grid the cars are
+     * scanned, like Track does.
+     */
+    private boolean isOccupiedByOtherActiveCar(int x, int y, int car) {
+        if (activeCarsPerCell != null && !layout.isOutOfBounds(x, y)) {
+            int ownCar = positionX[car] == x && positionY[car] == y ? 1 : 0;
+            return activeCarsPerCell[layout.cellIndex(x, y)] > ownCar;
+        }
+        for (int i = 0; i < carCount; i++) {
+            if (i != car && !crashed[i] && positionX[i] == x && positionY[i] == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasOtherActiveCarWithin(int x, int y, int distance, int car) {
+        for (int i = 0; i < carCount; i++) {
+            if (i != car && !crashed[i]
+                && Math.abs(positionX[i] - x) <= distance && Math.abs(positionY[i] - y) <= distance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * If all cars have crashed (only possible on a track with a single car), the current car is not changed.
+     */
+    @Override
+    public void switchToNextActiveCar() {
+        if (activeCarCount == 0) {
+            return;
+        }
+        do {
+            currentCarIndex = (currentCarIndex + 1) % carCount;
+        } while (crashed[currentCarIndex] && currentCarIndex != winner);
+    }
+
+    @Override
+    public List<PositionVector> calculatePath(PositionVector startPosition, PositionVector endPosition) {
+        List<PositionVector> path = new ArrayList<>();
+        Game.traversePath(startPosition.getX(), startPosition.getY(), endPosition.getX(), endPosition.getY(),
+            (x, y) -> {
+                path.add(new PositionVector(x, y));
+                return false;
+            });
+        return path;
+    }
+}
@@ -8,9 +8,11 @@ import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
  * Uses {@link PositionVector} to store current position on the track grid and current velocity vector.<br/>
  * Each car has an identifier character which represents the car on the racetrack board.<br/>
  * Also keeps the state, if the car is crashed (not active anymore).
- * The state can not be changed back to uncrashed.<br/>
+ * The state can not be changed back to uncrashed, except by restoring a {@link Game#restore(int[]) snapshot}.<br/>
  * The velocity is changed by providing an acceleration vector.<br/>
  * The car is able to calculate the endpoint of its next position and on request moves to it.<br/>
+ * If the car is placed on a {@link Track}, the track is notified about every position change,
+ * to keep its cell occupancy up to date.<br/>
  */
 public class Car implements CarSpecification {
 
@@ -23,6 +25,8 @@ public class Car implements CarSpecification {
     private PositionVector position;
     private PositionVector currentVelocity;
     MoveStrategy moveStrategy;
+    private Track track;
+    private int carIndex;
 
     /**
      * Constructor for class Car.
@@ -105,7 +109,7 @@ public class Car implements CarSpecification {
     public void move() {
         int newX = position.getX() + currentVelocity.getX();
         int newY = position.getY() + currentVelocity.getY();
-        position = new PositionVector(newX, newY);
+        setPosition(new PositionVector(newX, newY));
     }
 
     public void setVelocity(PositionVector velocity) {
@@ -148,7 +152,44 @@ public class Car implements CarSpecification {
      */
 
     public void setPosition(PositionVector position) {
+        PositionVector oldPosition = this.position;
         this.position = position;
+        if (track != null) {
+            track.carMoved(carIndex, oldPosition, position);
+        }
+    }
+
+    /**
+     * Places the car on the given track, which is notified about all further position changes.
+     *
+     * @param track    the track the car is placed on
+     * @param carIndex the index of the car on the track
+     */
+    void placeOnTrack(Track track, int carIndex) {
+        this.track = track;
+        this.carIndex = carIndex;
+    }
+
+    /**
+     * Sets the whole state of the car, when a {@link Game#restore(int[]) snapshot} is restored.
+     * New position and velocity vectors are only created if they changed.
+     *
+     * @param x             the column of the position
+     * @param y             the row of the position
+     * @param vx            the horizontal velocity
+     * @param vy            the vertical velocity
+     * @param remainingLaps the number of remaining laps
+     * @param crashed       true if the car has crashed
+     */
+    void restoreState(int x, int y, int vx, int vy, int remainingLaps, boolean crashed) {
+        if (position.getX() != x || position.getY() != y) {
+            setPosition(new PositionVector(x, y));
+        }
+        if (currentVelocity.getX() != vx || currentVelocity.getY() != vy) {
+            currentVelocity = new PositionVector(vx, vy);
+        }
+        this.remainingLaps = remainingLaps;
+        this.crashed = crashed;
     }
 
     /**
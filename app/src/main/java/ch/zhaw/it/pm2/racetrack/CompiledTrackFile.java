@@ -0,0 +1,394 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes tracks in the compiled binary format.
+ *
+ * <p>A compiled track file consists of a header and the cell body. All numbers are big endian.
+ * <ul>
+ *   <li>magic number {@link #MAGIC} and format {@link #VERSION}</li>
+ *   <li>size and last modification time of the text file the track was compiled from</li>
+ *   <li>width and height of the grid</li>
+ *   <li>number of cars, followed by id, x and y of each car in the order of the text file</li>
+ *   <li>CRC32 checksum of the body</li>
+ *   <li>body: the ordinal of the {@link SpaceType} of each cell as one byte, row by row</li>
+ * </ul>
+ *
+ * <p>The compiled file of a text track file is stored next to it, with the extension {@link #EXTENSION}
+ * (see {@link #compiledFileFor(File)}). The file is loaded with a memory mapping, and the body is copied to the grid
+ * in bulk, as it already has the layout used by {@link Track}. The cells are not decoded when loading: they are
+ * validated when the file is written, and the checksum detects a body changed afterwards.</p>
+ *
+ * <p>{@link #load(File, int)} uses the compiled file of a text track file if it is up to date, i.e. the size and
+ * last modification time of the text file are still the ones stored in the header. Otherwise the text file is
+ * parsed with the {@link TrackParser}. Compiled files are created with {@link #compile(File)} or by running the
+ * {@link #main(String[])} method of this class.</p>
+ */
+public final class CompiledTrackFile {
+
+    /**
+     * Extension of compiled track files.
+     */
+    public static final String EXTENSION = ".rtrk";
+
+    /**
+     * Magic number at the start of a compiled track file ("RTRK").
+     */
+    public static final int MAGIC = 0x5254524B;
+
+    /**
+     * Version of the format written by this class.
+     */
+    public static final short VERSION = 2;
+
+    private static final String TEXT_EXTENSION = ".txt";
+
+    private CompiledTrackFile() {
+    }
+
+    /**
+     * Returns the compiled file belonging to the given text track file.
+     *
+     * @param trackFile the text track file
+     * @return the compiled file in the same directory
+     */
+    public static File compiledFileFor(File trackFile) {
+        String name = trackFile.getName();
+        if (name.endsWith(TEXT_EXTENSION)) {
+            name = name.substring(0, name.length() - TEXT_EXTENSION.length());
+        }
+        return new File(trackFile.getParentFile(), name + EXTENSION);
+    }
+
+    /**
+     * Returns whether the given file is a compiled track file, based on its extension.
+     *
+     * @param file the file to check
+     * @return true if the file has the extension of compiled track files
+     */
+    public static boolean isCompiledFile(File file) {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    /**
+     * Loads the given track file. A compiled track file is read directly. For a text track file, its compiled file
+     * is read if it is up to date, otherwise the text file is parsed.
+     *
+     * @param trackFile the track file to load
+     * @param maxCars   the maximum number of cars allowed on the track
+     * @return the track data
+     * @throws IOException                if the track file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     */
+    public static TrackParser.ParsedTrack load(File trackFile, int maxCars)
+        throws IOException, InvalidFileFormatException {
+        if (isCompiledFile(trackFile)) {
+            return read(trackFile, maxCars);
+        }
+        TrackParser.ParsedTrack compiledTrack = readIfUpToDate(trackFile, maxCars);
+        return compiledTrack != null ? compiledTrack : TrackParser.parse(trackFile, maxCars);
+    }
+
+    /**
+     * Reads a track file, whose content was already read with {@link TrackParser#read(File)}. A compiled track
+     * file is read from the content, a text track file is parsed from it. Unlike {@link #load(File, int)}, the
+     * compiled file of a text track file is not considered, use {@link #readIfUpToDate(File, int)} first.
+     * The position of the content is not changed.
+     *
+     * @param trackFile the track file the content was read from
+     * @param content   the content of the track file
+     * @param maxCars   the maximum number of cars allowed on the track
+     * @return the track data
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     */
+    static TrackParser.ParsedTrack readContent(File trackFile, ByteBuffer content, int maxCars)
+        throws InvalidFileFormatException {
+        if (isCompiledFile(trackFile)) {
+            long startTime = System.nanoTime();
+            ByteBuffer buffer = content.duplicate();
+            return readBody(buffer, readHeader(buffer), trackFile, maxCars, startTime);
+        }
+        return TrackParser.parse(content, maxCars);
+    }
+
+    /**
+     * Reads the compiled file of the text track file, if it exists and is up to date. The header and the body are
+     * read from a single mapping. A damaged compiled file is ignored, the text file is the reference.
+     *
+     * @param trackFile the text track file
+     * @param maxCars   the maximum number of cars allowed on the track
+     * @return the track data, or null if there is no usable compiled file
+     */
+    static TrackParser.ParsedTrack readIfUpToDate(File trackFile, int maxCars) {
+        File compiledFile = compiledFileFor(trackFile);
+        if (!compiledFile.isFile()) {
+            return null;
+        }
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(compiledFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = readHeader(buffer);
+            if (!header.isUpToDate(trackFile)) {
+                return null;
+            }
+            return readBody(buffer, header, compiledFile, maxCars, startTime);
+        } catch (IOException | InvalidFileFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the given text track file and writes the compiled file next to it.
+     * The compiled file is replaced atomically, so concurrent readers never see a partially written file.
+     *
+     * @param trackFile the text track file to compile
+     * @return the compiled file
+     * @throws IOException                if the text file can not be read or the compiled file can not be written
+     * @throws InvalidFileFormatException if the text file contains invalid data
+     */
+    public static File compile(File trackFile) throws IOException, InvalidFileFormatException {
+        long sourceSize = trackFile.length();
+        long sourceLastModified = trackFile.lastModified();
+        TrackParser.ParsedTrack track = TrackParser.parse(trackFile, Integer.MAX_VALUE);
+        File compiledFile = compiledFileFor(trackFile);
+        File tempFile = File.createTempFile(compiledFile.getName(), ".tmp", compiledFile.getAbsoluteFile().getParentFile());
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+                write(track, sourceSize, sourceLastModified, out);
+            }
+            Files.move(tempFile.toPath(), compiledFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+        return compiledFile;
+    }
+
+    /**
+     * Writes the given track in the compiled format. As the cells are not validated when the file is loaded,
+     * every cell must be the ordinal of a {@link SpaceType}.
+     *
+     * @param track              the track data to write
+     * @param sourceSize         the size of the text file the track was parsed from
+     * @param sourceLastModified the last modification time of the text file the track was parsed from
+     * @param out                the stream to write to, which is not closed
+     * @throws IOException              if writing fails
+     * @throws IllegalArgumentException if a cell is not the ordinal of a space type
+     */
+    public static void write(TrackParser.ParsedTrack track, long sourceSize, long sourceLastModified, OutputStream out)
+        throws IOException {
+        byte[] cells = track.cells();
+        int spaceTypeCount = SpaceType.values().length;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] < 0 || cells[cell] >= spaceTypeCount) {
+                throw new IllegalArgumentException("Invalid space type " + cells[cell] + " at cell " + cell);
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(cells);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeLong(sourceSize);
+        data.writeLong(sourceLastModified);
+        data.writeInt(track.width());
+        data.writeInt(track.height());
+        data.writeInt(track.carIds().size());
+        for (int i = 0; i < track.carIds().size(); i++) {
+            data.writeChar(track.carIds().get(i));
+            data.writeInt(track.carPositions().get(i).getX());
+            data.writeInt(track.carPositions().get(i).getY());
+        }
+        data.writeInt((int) checksum.getValue());
+        data.write(cells);
+        data.flush();
+    }
+
+    /**
+     * Reads only the header of a compiled track file.
+     *
+     * @param compiledFile the compiled track file
+     * @return the header
+     * @throws IOException                if the file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the file is not a compiled track file of a supported version
+     */
+    public static Header readHeader(File compiledFile) throws IOException, InvalidFileFormatException {
+        try (FileChannel channel = FileChannel.open(compiledFile.toPath(), StandardOpenOption.READ)) {
+            return readHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a compiled track file. The checksum of the body and the start positions of the cars are verified.
+     *
+     * @param compiledFile the compiled track file
+     * @param maxCars      the maximum number of cars allowed on the track
+     * @return the track data
+     * @throws IOException                if the file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the file is not a valid compiled track file, or has too many cars
+     */
+    public static TrackParser.ParsedTrack read(File compiledFile, int maxCars)
+        throws IOException, InvalidFileFormatException {
+        long startTime = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(compiledFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return readBody(buffer, readHeader(buffer), compiledFile, maxCars, startTime);
+        }
+    }
+
+    /*
+     * Read the body following the header in the buffer, and verify its checksum and the start positions of the
+     * header. The cells were validated when the file was written. The header is not covered by the checksum,
+     * so a start position must be inside the grid, on a track cell, and not shared with another car.
+     */
+    private static TrackParser.ParsedTrack readBody(ByteBuffer buffer, Header header, File compiledFile, int maxCars,
+                                                    long startTime) throws InvalidFileFormatException {
+        if (header.carIds().size() > maxCars) {
+            throw new InvalidFileFormatException("Amount of cars exceeds the maximum of " + maxCars);
+        }
+        int cellCount = header.width() * header.height();
+        if (buffer.remaining() != cellCount) {
+            throw new InvalidFileFormatException("Compiled track body has " + buffer.remaining()
+                + " bytes instead of " + cellCount);
+        }
+        byte[] cells = new byte[cellCount];
+        buffer.get(cells);
+        CRC32 checksum = new CRC32();
+        checksum.update(cells);
+        if ((int) checksum.getValue() != header.checksum()) {
+            throw new InvalidFileFormatException("Checksum mismatch in compiled track file " + compiledFile);
+        }
+        Set<Character> carIds = new HashSet<>();
+        Set<PositionVector> carPositions = new HashSet<>();
+        for (int i = 0; i < header.carIds().size(); i++) {
+            char carId = header.carIds().get(i);
+            PositionVector position = header.carPositions().get(i);
+            int x = position.getX();
+            int y = position.getY();
+            if (x < 0 || x >= header.width() || y < 0 || y >= header.height()
+                || cells[y * header.width() + x] != SpaceType.TRACK.ordinal()) {
+                throw new InvalidFileFormatException("Invalid start position " + position + " of car " + carId
+                    + " in compiled track file " + compiledFile);
+            }
+            if (!carIds.add(carId) || !carPositions.add(position)) {
+                throw new InvalidFileFormatException("Duplicate car " + carId + " at " + position
+                    + " in compiled track file " + compiledFile);
+            }
+        }
+        TrackParser.ParseStatistics statistics = new TrackParser.ParseStatistics(cellCount, buffer.limit(),
+            System.nanoTime() - startTime);
+        return new TrackParser.ParsedTrack(header.width(), header.height(), cells, header.carIds(),
+            header.carPositions(), statistics);
+    }
+
+    /*
+     * Read the header from the start of the buffer, leaving the buffer positioned at the body.
+     */
+    private static Header readHeader(ByteBuffer buffer) throws InvalidFileFormatException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new InvalidFileFormatException("Not a compiled track file");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new InvalidFileFormatException("Unsupported compiled track version: " + version);
+            }
+            long sourceSize = buffer.getLong();
+            long sourceLastModified = buffer.getLong();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+                throw new InvalidFileFormatException("Invalid compiled track size: " + width + "x" + height);
+            }
+            int carCount = buffer.getInt();
+            if (carCount <= 0 || carCount > buffer.remaining() / 10) {
+                throw new InvalidFileFormatException("Invalid number of cars in compiled track: " + carCount);
+            }
+            List<Character> carIds = new ArrayList<>(carCount);
+            List<PositionVector> carPositions = new ArrayList<>(carCount);
+            for (int i = 0; i < carCount; i++) {
+                carIds.add(buffer.getChar());
+                carPositions.add(new PositionVector(buffer.getInt(), buffer.getInt()));
+            }
+            int checksum = buffer.getInt();
+            return new Header(sourceSize, sourceLastModified, width, height, List.copyOf(carIds),
+                List.copyOf(carPositions), checksum);
+        } catch (BufferUnderflowException e) {
+            throw new InvalidFileFormatException("Compiled track file is truncated");
+        }
+    }
+
+    /**
+     * Compiles all text track files given as arguments, or all text track files of the track directory
+     * of the {@link Config} if no arguments are given.
+     *
+     * @param args the text track files to compile
+     */
+    public static void main(String[] args) {
+        List<File> trackFiles = new ArrayList<>();
+        for (String arg: args) {
+            trackFiles.add(new File(arg));
+        }
+        if (trackFiles.isEmpty()) {
+            File[] files = new Config().getTrackDirectory().listFiles((dir, name) -> name.endsWith(TEXT_EXTENSION));
+            if (files != null) {
+                trackFiles.addAll(List.of(files));
+            }
+        }
+        boolean failed = false;
+        for (File trackFile: trackFiles) {
+            try {
+                File compiledFile = compile(trackFile);
+                System.out.println(trackFile + " -> " + compiledFile);
+            } catch (IOException | InvalidFileFormatException e) {
+                System.err.println(trackFile + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Header of a compiled track file.
+     *
+     * @param sourceSize         the size of the text file the track was compiled from
+     * @param sourceLastModified the last modification time of the text file the track was compiled from
+     * @param width              the number of columns of the grid
+     * @param height             the number of rows of the grid
+     * @param carIds             the ids of the cars, in the order of the text file
+     * @param carPositions       the start positions of the cars, in the same order
+     * @param checksum           the CRC32 checksum of the body
+     */
+    public record Header(long sourceSize, long sourceLastModified, int width, int height, List<Character> carIds,
+                         List<PositionVector> carPositions, int checksum) {
+
+        /**
+         * Returns whether the compiled file is up to date with the given text file.
+         *
+         * @param trackFile the text file the track was compiled from
+         * @return true if size and last modification time of the text file did not change since the compilation
+         */
+        public boolean isUpToDate(File trackFile) {
+            return trackFile.length() == sourceSize && trackFile.lastModified() == sourceLastModified;
+        }
+    }
+}
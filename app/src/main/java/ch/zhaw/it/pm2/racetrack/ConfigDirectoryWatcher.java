@@ -0,0 +1,299 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Watches the track, move and follower directories of a {@link Config} for changed files.
+ *
+ * <p>The directories are watched with a {@link WatchService} on a background thread. The events of a directory
+ * are collected per file (several modifications of a file while it is written are reported once), and passed to
+ * the registered {@link ChangeListener listeners} on a separate worker thread. So a listener may do expensive work,
+ * like parsing the changed file, without delaying the watcher.</p>
+ *
+ * <p>If the watch service lost events ({@link ChangeType#OVERFLOW}), the listeners are notified once with the
+ * directory instead of a file, and should treat all files of the directory as changed.</p>
+ *
+ * <p>{@link #trackReloader(TrackCache, TrackCatalog)} creates a listener keeping a track cache and catalog up to date:
+ * only the changed track files are invalidated and parsed again.</p>
+ */
+public final class ConfigDirectoryWatcher implements AutoCloseable {
+
+    private static final String TRACK_EXTENSION = ".txt";
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Set<DirectoryType>> directoryTypes = new HashMap<>();
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService worker;
+    private final Thread watcherThread;
+
+    /**
+     * Creates a watcher for the directories of the given configuration. Call {@link #start()} to start watching.
+     *
+     * @param config the configuration holding the directories
+     * @throws IOException if a directory can not be registered with the watch service
+     */
+    public ConfigDirectoryWatcher(Config config) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        try {
+            register(config.getTrackDirectory(), DirectoryType.TRACKS);
+            register(config.getMoveDirectory(), DirectoryType.MOVES);
+            register(config.getFollowerDirectory(), DirectoryType.FOLLOWER);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        worker = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "config-change-worker"));
+        watcherThread = daemon(this::watch, "config-directory-watcher");
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /*
+     * Register the directory. If several types share a directory, the same key is returned for all of them.
+     */
+    private void register(File directory, DirectoryType type) throws IOException {
+        Path path = directory.toPath().toAbsolutePath();
+        WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directoryTypes.computeIfAbsent(key, k -> EnumSet.noneOf(DirectoryType.class)).add(type);
+        directories.put(key, path);
+    }
+
+    /**
+     * Adds a listener, which is notified about all changes after it was added.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts watching the directories on a background thread.
+     *
+     * @throws IllegalStateException if the watcher was already started
+     */
+    public void start() {
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching the directories. Changes which were already detected are still passed to the listeners.
+     * Waits until the watcher thread has ended, so it does not pass changes to the worker after it was shut down.
+     *
+     * @throws IOException if the watch service can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcherThread.interrupt();
+        try {
+            watcherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            worker.shutdown();
+        }
+    }
+
+    /*
+     * Wait for the events of the directories until the watch service is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Map<Path, ChangeType> changes = collectChanges(key);
+                Set<DirectoryType> types = directoryTypes.get(key);
+                if (!key.reset()) {
+                    directoryTypes.remove(key);
+                    directories.remove(key);
+                }
+                if (types != null && !changes.isEmpty()) {
+                    worker.execute(() -> notifyListeners(types, changes));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException | RejectedExecutionException e) {
+            // The watcher was closed
+        }
+    }
+
+    /*
+     * Collect the events of the key, keeping the last change of each file.
+     * After an overflow, the directory itself is reported.
+     */
+    private Map<Path, ChangeType> collectChanges(WatchKey key) {
+        Path directory = directories.get(key);
+        Map<Path, ChangeType> changes = new LinkedHashMap<>();
+        for (WatchEvent<?> event: key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changes.clear();
+                changes.put(directory, ChangeType.OVERFLOW);
+                break;
+            }
+            Path file = directory.resolve((Path) event.context());
+            ChangeType change = ChangeType.of(event.kind());
+            ChangeType previous = changes.remove(file);
+            // A file created and then modified is still new for the listeners
+            changes.put(file, previous == ChangeType.CREATED && change == ChangeType.MODIFIED ? previous : change);
+        }
+        return changes;
+    }
+
+    private void notifyListeners(Set<DirectoryType> types, Map<Path, ChangeType> changes) {
+        for (Map.Entry<Path, ChangeType> change: changes.entrySet()) {
+            for (DirectoryType type: types) {
+                for (ChangeListener listener: listeners) {
+                    try {
+                        listener.fileChanged(type, change.getKey().toFile(), change.getValue());
+                    } catch (RuntimeException e) {
+                        // A failing listener must neither stop the watcher nor the other listeners
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a listener keeping the given cache and catalog up to date with the track directory.
+     *
+     * <p>A changed track file is removed from the cache and, if it was cached, parsed again, so the next race
+     * finds the new layout. If the file can not be parsed (e.g. because it is still being written), it is parsed
+     * again on its next change. Its catalog entry is updated and the catalog is saved. After an overflow, the whole
+     * cache is cleared and the catalog is refreshed.</p>
+     *
+     * @param cache   the track cache to keep up to date, or null
+     * @param catalog the catalog of the track directory to keep up to date, or null
+     * @return the listener
+     */
+    public static ChangeListener trackReloader(TrackCache cache, TrackCatalog catalog) {
+        // Cached files which could not be parsed yet, e.g. because they were still being written
+        Set<File> pendingFiles = ConcurrentHashMap.newKeySet();
+        return (type, file, change) -> {
+            if (type != DirectoryType.TRACKS) return;
+            try {
+                if (change == ChangeType.OVERFLOW) {
+                    if (cache != null) cache.clear();
+                    if (catalog != null) {
+                        catalog.refresh();
+                        catalog.save();
+                    }
+                    return;
+                }
+                if (!file.getName().endsWith(TRACK_EXTENSION)) return;
+                if (cache != null) {
+                    boolean wasCached = cache.invalidate(file) | pendingFiles.remove(file);
+                    if (wasCached && file.isFile()) {
+                        try {
+                            cache.get(file);
+                        } catch (IOException | InvalidFileFormatException e) {
+                            pendingFiles.add(file);
+                        }
+                    }
+                }
+                if (catalog != null) {
+                    catalog.update(file.getName());
+                    catalog.save();
+                }
+            } catch (IOException e) {
+                // The file was changed again or removed, the next event updates the catalog
+            }
+        };
+    }
+
+    /**
+     * Type of a watched directory.
+     */
+    public enum DirectoryType {
+        /**
+         * The track directory ({@link Config#getTrackDirectory()}).
+         */
+        TRACKS,
+        /**
+         * The directory of the move list files ({@link Config#getMoveDirectory()}).
+         */
+        MOVES,
+        /**
+         * The directory of the path follower files ({@link Config#getFollowerDirectory()}).
+         */
+        FOLLOWER
+    }
+
+    /**
+     * Type of change of a file.
+     */
+    public enum ChangeType {
+        /**
+         * The file was created.
+         */
+        CREATED,
+        /**
+         * The file was modified.
+         */
+        MODIFIED,
+        /**
+         * The file was deleted.
+         */
+        DELETED,
+        /**
+         * Events were lost, all files of the directory may have changed.
+         */
+        OVERFLOW;
+
+        private static ChangeType of(WatchEvent.Kind<?> kind) {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) return CREATED;
+            if (kind == StandardWatchEventKinds.ENTRY_DELETE) return DELETED;
+            return MODIFIED;
+        }
+    }
+
+    /**
+     * Listener notified about changed files of the watched directories.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        /**
+         * Called on the worker thread of the watcher for each changed file.
+         *
+         * @param type   the type of the directory containing the file
+         * @param file   the changed file, or the directory if the change is {@link ChangeType#OVERFLOW}
+         * @param change the type of the change
+         */
+        void fileChanged(DirectoryType type, File file, ChangeType change);
+    }
+}
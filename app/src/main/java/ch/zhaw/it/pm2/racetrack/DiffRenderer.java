@@ -0,0 +1,253 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renderer drawing the track once and then only the cells which changed, for spectating races on large tracks.
+ *
+ * <p>The renderer keeps a frame buffer with the characters of the last drawn track. As the grid of a track never
+ * changes, only the cells of the cars can change between two frames: the cells a car left and the cells a car
+ * moved to or crashed on. So a frame only compares the cells of the cars in the last and in the current frame
+ * with the frame buffer, instead of building the whole {@link Track#toString() track}.</p>
+ *
+ * <p>With {@link Mode#ANSI}, the changed cells are drawn in place, using ANSI escape sequences to move the cursor.
+ * The status and the last message are shown on the lines below the track. Terminals without ANSI support can use
+ * {@link Mode#CHANGE_LIST}, which prints a line listing the changed cells for every frame.</p>
+ *
+ * <p>Each frame is collected in a buffer and written at once. The track is drawn completely in the first frame,
+ * and again if the renderer is used for another track.</p>
+ */
+public class DiffRenderer implements Renderer {
+
+    private static final String ESCAPE = "\u001b[";
+    private static final String CLEAR_SCREEN = ESCAPE + "2J" + ESCAPE + "H";
+    private static final String CLEAR_LINE = ESCAPE + "2K";
+    private static final int NO_CELL = -1;
+
+    private final PrintWriter out;
+    private final Mode mode;
+    private final StringBuilder frameText = new StringBuilder();
+
+    private Track track;
+    private int width;
+    private int height;
+    private char[] frame;
+    private int[] carCells;
+    private int[] previousCarCells;
+
+    /**
+     * Creates a renderer drawing to the standard output with ANSI escape sequences.
+     */
+    public DiffRenderer() {
+        this(System.out, Mode.ANSI);
+    }
+
+    /**
+     * Creates a renderer writing UTF-8 text to the given stream.
+     *
+     * @param out  the stream to write to
+     * @param mode how the changed cells are written
+     */
+    public DiffRenderer(OutputStream out, Mode mode) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        this.mode = mode;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void printMessage(String message) {
+        startMessage();
+        frameText.append(message);
+        endMessage();
+    }
+
+    @Override
+    public void printStatus(Track track, char carId) {
+        drawChanges(track);
+        startStatus();
+        frameText.append("Current turn: ").append(carId);
+        endMessage();
+    }
+
+    @Override
+    public void printCrash(char carId, PositionVector position, String reason) {
+        startMessage();
+        frameText.append("Car <").append(carId).append("> crashed at position ").append(position)
+            .append(": ").append(reason);
+        endMessage();
+    }
+
+    @Override
+    public void printWinner(Track track, char carId) {
+        drawChanges(track);
+        startStatus();
+        frameText.append("Car <").append(carId).append("> wins the game!");
+        endMessage();
+    }
+
+    @Override
+    public void printRaceEnded(Track track, String reason) {
+        drawChanges(track);
+        startStatus();
+        frameText.append("The race ended without a winner: ").append(reason);
+        endMessage();
+    }
+
+    /**
+     * Moves the cursor below the track and the messages, and writes out all output.
+     */
+    @Override
+    public void finish() {
+        if (mode == Mode.ANSI && frame != null) {
+            moveCursor(height + 2, 0);
+            frameText.append('\n');
+        }
+        writeFrame();
+    }
+
+    /*
+     * Draw the whole track if it was not drawn yet, otherwise only the cells which changed since the last frame.
+     */
+    private void drawChanges(Track track) {
+        if (track != this.track || frame == null) {
+            drawTrack(track);
+            return;
+        }
+        if (mode == Mode.CHANGE_LIST) {
+            frameText.append("Changed cells:");
+        }
+        int[] previousCells = carCells;
+        carCells = currentCarCells(track, previousCarCells);
+        previousCarCells = previousCells;
+        for (int cell: previousCells) {
+            redrawCell(cell);
+        }
+        for (int cell: carCells) {
+            redrawCell(cell);
+        }
+        if (mode == Mode.CHANGE_LIST) {
+            frameText.append('\n');
+        }
+    }
+
+    private void drawTrack(Track track) {
+        this.track = track;
+        width = track.getWidth();
+        height = track.getHeight();
+        frame = new char[width * height];
+        carCells = currentCarCells(track, null);
+        previousCarCells = null;
+        if (mode == Mode.ANSI) {
+            frameText.append(CLEAR_SCREEN);
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                char c = track.getCharRepresentationAtPosition(row, col);
+                frame[row * width + col] = c;
+                frameText.append(c);
+            }
+            frameText.append('\n');
+        }
+    }
+
+    /*
+     * Return the cells of the cars on the track, or NO_CELL for cars outside the grid.
+     * The given array is reused if it has the right size, so drawing a frame does not allocate.
+     */
+    private int[] currentCarCells(Track track, int[] cells) {
+        if (cells == null || cells.length != track.getCarCount()) {
+            cells = new int[track.getCarCount()];
+        }
+        for (int i = 0; i < cells.length; i++) {
+            PositionVector position = track.getCar(i).getPosition();
+            int x = position.getX();
+            int y = position.getY();
+            cells[i] = x < 0 || y < 0 || x >= width || y >= height ? NO_CELL : y * width + x;
+        }
+        return cells;
+    }
+
+    /*
+     * Compare the cell with the frame buffer and draw it, if it changed.
+     */
+    private void redrawCell(int cell) {
+        if (cell == NO_CELL) return;
+        int row = cell / width;
+        int col = cell % width;
+        char c = track.getCharRepresentationAtPosition(row, col);
+        if (frame[cell] == c) return;
+        frame[cell] = c;
+        if (mode == Mode.ANSI) {
+            moveCursor(row, col);
+            frameText.append(c);
+        } else {
+            frameText.append(" (X:").append(col).append(", Y:").append(row).append(")='").append(c).append('\'');
+        }
+    }
+
+    /*
+     * Start the status line: below the track with ANSI, at the start of a new line otherwise.
+     */
+    private void startStatus() {
+        if (mode == Mode.ANSI && frame != null) {
+            moveCursor(height, 0);
+            frameText.append(CLEAR_LINE);
+        }
+    }
+
+    /*
+     * Start the message line: below the status line with ANSI, at the start of a new line otherwise.
+     */
+    private void startMessage() {
+        if (mode == Mode.ANSI && frame != null) {
+            moveCursor(height + 1, 0);
+            frameText.append(CLEAR_LINE);
+        }
+    }
+
+    private void endMessage() {
+        if (mode == Mode.CHANGE_LIST || frame == null) {
+            frameText.append('\n');
+        }
+        writeFrame();
+    }
+
+    /*
+     * Move the cursor to the given zero-based row and column.
+     */
+    private void moveCursor(int row, int col) {
+        frameText.append(ESCAPE).append(row + 1).append(';').append(col + 1).append('H');
+    }
+
+    /*
+     * Write the collected output at once.
+     */
+    private void writeFrame() {
+        out.append(frameText);
+        out.flush();
+        frameText.setLength(0);
+    }
+
+    /**
+     * How the changed cells are written.
+     */
+    public enum Mode {
+        /**
+         * Draw the changed cells in place, using ANSI escape sequences to move the cursor.
+         */
+        ANSI,
+        /**
+         * Print a line listing the position and new character of the changed cells, for terminals without
+         * ANSI support.
+         */
+        CHANGE_LIST
+    }
+}
@@ -14,46 +14,276 @@ import java.util.List;
  */
 public class Game implements GameSpecification {
     private final Track track;
+    private final Renderer renderer;
+    private final PathTemplateCache pathTemplates;
     private int currentCarIndex;
     private int winner;
+    private int turnCount;
+    private int turnLimit = Integer.MAX_VALUE;
+    private int stallLimit = DEFAULT_STALL_LIMIT;
+    private long[] recentStates;
+    private int recentStateCount;
+    private final LongIntHashMap lastSeenStates = new LongIntHashMap();
+    private int stalledTurns;
+    private RaceOutcome outcome = RaceOutcome.RUNNING;
+    private String outcomeReason;
+    private GameEventSink eventSink;
+    private final PathVisitor carMovementVisitor = this::processPositionForCar;
     public static final int NO_WINNER = -1;
 
     /**
-     * Constructor for the Game class.
+     * Default number of consecutive turns without a new race state, after which the race is stalled.
+     */
+    public static final int DEFAULT_STALL_LIMIT = 1_000;
+
+    /**
+     * Number of values of a {@link #snapshot() snapshot} holding the state of the game:
+     * the current car index, the winner and the turn count.
+     */
+    public static final int SNAPSHOT_HEADER_SIZE = 3;
+
+    /**
+     * Number of values of a {@link #snapshot() snapshot} per car: position x and y, velocity x and y,
+     * remaining laps and crashed (1) or not (0).
+     */
+    public static final int SNAPSHOT_CAR_SIZE = 6;
+
+    /**
+     * Constructor for the Game class, printing to the text terminal.
      *
      * @param track the track to be used for this game
      */
     public Game(final Track track) {
+        this(track, new TextIoRenderer());
+    }
+
+    /**
+     * Constructor for the Game class.
+     *
+     * @param track    the track to be used for this game
+     * @param renderer the renderer printing the game, e.g. {@link NoOpRenderer#INSTANCE} for simulations
+     */
+    public Game(final Track track, final Renderer renderer) {
+        this(track, renderer, PathTemplateCache.getDefault());
+    }
+
+    /**
+     * Constructor for the Game class.
+     * The paths of the moves are taken from the given template cache.
+     *
+     * @param track         the track to be used for this game
+     * @param renderer      the renderer printing the game, e.g. {@link NoOpRenderer#INSTANCE} for simulations
+     * @param pathTemplates the cache of precomputed paths, e.g. covering a higher speed than the default
+     */
+    public Game(final Track track, final Renderer renderer, final PathTemplateCache pathTemplates) {
         this.track = track;
+        this.renderer = renderer;
+        this.pathTemplates = pathTemplates;
         this.currentCarIndex = 0;
         this.winner = NO_WINNER;
+        this.turnCount = 0;
     }
 
     /**
-     * Starts the game loop, continuously moving cars until a winner is declared.
+     * Starts the game loop, continuously moving cars until a winner is declared, the race is stalled,
+     * the turn limit is reached or a move strategy terminates the game by returning null.
      */
     public void startGame() {
-        while (getWinner() == NO_WINNER) {
-            UserInterface.printStatus(track, track.getCar(currentCarIndex).getId());
+        while (isRaceProgressing(turnLimit)) {
+            renderer.printStatus(track, track.getCar(currentCarIndex).getId());
 
             Direction acceleration = track.getCar(currentCarIndex).getMoveStrategy().nextMove();
+            if (acceleration == null) {
+                abortRace();
+                break;
+            }
             doCarTurn(acceleration);
+        }
+        if (getWinner() != NO_WINNER) {
+            renderer.printWinner(track, getCarId(getWinner()));
+        } else {
+            renderer.printRaceEnded(track, getOutcomeReason());
+        }
+        renderer.finish();
+    }
 
-            if (getWinner() != NO_WINNER) {
-                declareWinner();
+    /**
+     * Runs the game without any user interaction, until a winner is declared, the race is stalled, a move strategy
+     * terminates the game by returning null or the turn limit is reached.
+     *
+     * @param turnLimit maximum number of turns to play, overriding the {@link #setTurnLimit(int) turn limit}
+     * @return the number of turns played
+     */
+    public int playUntilFinished(int turnLimit) {
+        while (isRaceProgressing(turnLimit)) {
+            Direction acceleration = nextCarMove(currentCarIndex);
+            if (acceleration == null) {
+                abortRace();
                 break;
             }
+            doCarTurn(acceleration);
         }
+        return turnCount;
     }
 
     /**
-     * Announces the winner of the game by printing the winning car's ID.
+     * Sets the maximum number of turns played by {@link #startGame()}. There is no limit by default.
+     *
+     * @param turnLimit the maximum number of turns
+     * @throws IllegalArgumentException if turnLimit is not positive
+     */
+    public void setTurnLimit(int turnLimit) {
+        if (turnLimit < 1) {
+            throw new IllegalArgumentException("Turn limit must be positive: " + turnLimit);
+        }
+        this.turnLimit = turnLimit;
+    }
+
+    /**
+     * Sets the number of consecutive turns without a new race state, after which the game loop ends the race
+     * as {@link RaceOutcome#STALLED}. The default is {@link #DEFAULT_STALL_LIMIT}.<br/>
+     * A race state which was already reached in the last stallLimit turns (see {@link #getStateHash()}) does not
+     * count as progress, so only the states of these turns are kept.
+     * Cars waiting for a few turns do not stall the race, as long as the limit is larger than the waiting time.
+     *
+     * @param stallLimit the number of turns without progress
+     * @throws IllegalArgumentException if stallLimit is not positive
      */
-    private void declareWinner() {
-        UserInterface.printFinalGame(track, getCarId(getWinner()));
-        UserInterface.promptQuit();
+    public void setStallLimit(int stallLimit) {
+        if (stallLimit < 1) {
+            throw new IllegalArgumentException("Stall limit must be positive: " + stallLimit);
+        }
+        this.stallLimit = stallLimit;
+        resetStallDetection();
+    }
+
+    /**
+     * Sets the sink receiving the {@link GameEvent events} of the game, e.g. a {@link GameEventPipeline} passing
+     * them to other threads. The events are created and published on the thread playing the game.
+     * Without a sink (the default), no events are created.
+     *
+     * @param eventSink the sink receiving the events, or null to stop publishing events
+     */
+    public void setEventSink(GameEventSink eventSink) {
+        this.eventSink = eventSink;
+    }
+
+    /**
+     * Returns how the race ended, or {@link RaceOutcome#RUNNING} if it is still in progress.
+     *
+     * @return the outcome of the race
+     */
+    public RaceOutcome getOutcome() {
+        return winner != NO_WINNER ? RaceOutcome.WON : outcome;
+    }
+
+    /**
+     * Returns a description of why the race ended.
+     *
+     * @return the reason of the outcome, or null if the race is still in progress
+     */
+    public String getOutcomeReason() {
+        return winner != NO_WINNER ? "Car <" + getCarId(winner) + "> won the race" : outcomeReason;
+    }
+
+    /**
+     * Returns a 64-bit hash of the race state: the current car and the position, velocity, remaining laps and
+     * crash state of every car. Equal states have equal hashes; different states have different hashes with
+     * a very high probability. The move strategies are not part of the state.
+     *
+     * @return the hash of the race state
+     */
+    public long getStateHash() {
+        long hash = mix(currentCarIndex);
+        for (int i = 0; i < track.getCarCount(); i++) {
+            Car car = track.getCar(i);
+            PositionVector position = car.getPosition();
+            PositionVector velocity = car.getVelocity();
+            hash = mix(hash ^ PackedState.state(position.getX(), position.getY(), velocity.getX(), velocity.getY()));
+            hash = mix(hash ^ ((long) car.getRemainingLaps() << 1 | (car.isCrashed() ? 1 : 0)));
+        }
+        return hash;
+    }
+
+    /*
+     * Scramble the bits of the value (finalizer of SplitMix64).
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /*
+     * Check whether the race goes on before the next turn. Ends the race if it reached the turn limit,
+     * or if the stall limit is reached without a new race state.
+     */
+    private boolean isRaceProgressing(int turnLimit) {
+        if (winner != NO_WINNER || outcome != RaceOutcome.RUNNING) {
+            return false;
+        }
+        if (turnCount >= turnLimit) {
+            endRace(RaceOutcome.TURN_LIMIT, "Turn limit of " + turnLimit + " turns reached");
+            return false;
+        }
+        if (addRecentState(getStateHash())) {
+            stalledTurns = 0;
+        } else if (++stalledTurns >= stallLimit) {
+            endRace(RaceOutcome.STALLED, "No progress in the last " + stallLimit + " turns");
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * Add the state to the states of the last stallLimit turns and return whether it is not one of them.
+     * The states are kept in a ring, the map holds the index of the last turn each state was seen in. Entries of
+     * states which left the ring are not removed one by one, instead the map is rebuilt from the ring when it holds
+     * twice as many states, so its size stays in proportion to the stall limit.
+     */
+    private boolean addRecentState(long state) {
+        if (recentStates == null) {
+            recentStates = new long[stallLimit];
+        }
+        int lastSeen = lastSeenStates.get(state, -1);
+        boolean isNew = lastSeen < 0 || lastSeen < recentStateCount - stallLimit;
+        lastSeenStates.put(state, recentStateCount);
+        recentStates[recentStateCount % stallLimit] = state;
+        recentStateCount++;
+        if (lastSeenStates.size() > 2 * stallLimit) {
+            lastSeenStates.clear();
+            for (int i = Math.max(0, recentStateCount - stallLimit); i < recentStateCount; i++) {
+                lastSeenStates.put(recentStates[i % stallLimit], i);
+            }
+        }
+        return isNew;
+    }
+
+    private void resetStallDetection() {
+        recentStates = null;
+        recentStateCount = 0;
+        lastSeenStates.clear();
+        stalledTurns = 0;
+    }
+
+    private void abortRace() {
+        endRace(RaceOutcome.ABORTED, "The move strategy of car <" + getCarId(currentCarIndex) + "> ended the race");
     }
 
+    private void endRace(RaceOutcome outcome, String reason) {
+        this.outcome = outcome;
+        this.outcomeReason = reason;
+    }
+
+
+    /**
+     * Return the track the race is played on.
+     *
+     * @return the track of the game
+     */
+    public Track getTrack() {
+        return track;
+    }
 
     /**
      * Return the number of cars on the track.
@@ -144,6 +374,101 @@ public class Game implements GameSpecification {
         return winner;
     }
 
+    /**
+     * Return the number of turns played so far.
+     *
+     * @return the number of turns played
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Returns the number of values of a snapshot of this game.
+     *
+     * @return the length of the buffer needed by {@link #snapshot(int[])}
+     */
+    public int getSnapshotSize() {
+        return SNAPSHOT_HEADER_SIZE + track.getCarCount() * SNAPSHOT_CAR_SIZE;
+    }
+
+    /**
+     * Saves the state of the race into a new buffer, see {@link #snapshot(int[])}.
+     *
+     * @return the buffer holding the state of the race
+     */
+    public int[] snapshot() {
+        int[] buffer = new int[getSnapshotSize()];
+        snapshot(buffer);
+        return buffer;
+    }
+
+    /**
+     * Saves the state of the race into the given buffer, without allocating any objects.<br/>
+     * The buffer holds the current car index, the winner and the turn count, followed by the position, velocity,
+     * remaining laps and crash state of every car. The move strategies are not part of the snapshot.<br/>
+     * Together with {@link #restore(int[])}, this allows a strategy to try moves and roll them back: the state is
+     * saved, moves are made with {@link #doCarTurn(Direction)}, the outcome is inspected, and the saved state is
+     * restored. To do so without printing the crashes of the tried moves, restore the snapshot into a game with a
+     * {@link NoOpRenderer} on a separate track of the same layout ({@code new Track(track.getLayout())}).
+     * A second game on the same track shares the cars with the game of the race: its moves change the cars of the
+     * race until the snapshot is restored.
+     *
+     * @param buffer the buffer to fill, with a length of at least {@link #getSnapshotSize()}
+     * @throws IllegalArgumentException if the buffer is too small
+     */
+    public void snapshot(int[] buffer) {
+        checkSnapshotSize(buffer);
+        buffer[0] = currentCarIndex;
+        buffer[1] = winner;
+        buffer[2] = turnCount;
+        int offset = SNAPSHOT_HEADER_SIZE;
+        for (int i = 0; i < track.getCarCount(); i++) {
+            Car car = track.getCar(i);
+            PositionVector position = car.getPosition();
+            PositionVector velocity = car.getVelocity();
+            buffer[offset] = position.getX();
+            buffer[offset + 1] = position.getY();
+            buffer[offset + 2] = velocity.getX();
+            buffer[offset + 3] = velocity.getY();
+            buffer[offset + 4] = car.getRemainingLaps();
+            buffer[offset + 5] = car.isCrashed() ? 1 : 0;
+            offset += SNAPSHOT_CAR_SIZE;
+        }
+    }
+
+    /**
+     * Restores the state of the race saved by {@link #snapshot(int[])}, for a track with the same layout.
+     * Position and velocity vectors are only created for the cars which moved since the snapshot.<br/>
+     * A race which ended by the turn limit, the stall limit or its strategies is running again. The states seen
+     * before are not part of the snapshot, so the stall detection starts over.
+     *
+     * @param buffer the buffer holding the state of the race
+     * @throws IllegalArgumentException if the buffer is too small
+     */
+    public void restore(int[] buffer) {
+        checkSnapshotSize(buffer);
+        currentCarIndex = buffer[0];
+        winner = buffer[1];
+        turnCount = buffer[2];
+        outcome = RaceOutcome.RUNNING;
+        outcomeReason = null;
+        resetStallDetection();
+        int offset = SNAPSHOT_HEADER_SIZE;
+        for (int i = 0; i < track.getCarCount(); i++) {
+            track.getCar(i).restoreState(buffer[offset], buffer[offset + 1], buffer[offset + 2], buffer[offset + 3],
+                buffer[offset + 4], buffer[offset + 5] != 0);
+            offset += SNAPSHOT_CAR_SIZE;
+        }
+    }
+
+    private void checkSnapshotSize(int[] buffer) {
+        if (buffer.length < getSnapshotSize()) {
+            throw new IllegalArgumentException("Snapshot buffer too small: " + buffer.length
+                + " values, " + getSnapshotSize() + " needed");
+        }
+    }
+
     /**
      * Executes the next turn for the current active car. This method manages the sequence of actions
      * that occur during a car's turn, including acceleration, movement, and post-movement processes.
@@ -154,50 +479,61 @@ public class Game implements GameSpecification {
     @Override
     public void doCarTurn(Direction acceleration) {
         Car currentCar = track.getCar(currentCarIndex);
+        turnCount++;
 
         if (currentCar.isCrashed()) {
             switchToNextActiveCar();
             return;
         }
 
+        publishEvent(GameEvent.Type.TURN_STARTED, currentCarIndex, currentCar.getPosition(), null);
         processCarMovement(currentCar, acceleration);
         processCarPostMovement(currentCar);
     }
 
     /**
      * Processes the movement of the car including acceleration and path calculation.
-     * It iterates through the path and applies position-specific logic.
+     * It traverses the path (using the precomputed template of the velocity) and applies position-specific logic,
+     * until the car crashes or wins.<br/>
+     * If the move is shorter than the clearance of the starting position, the path crosses neither walls nor
+     * the finish line. Unless another car is close enough to be hit, the move is then accepted without
+     * traversing the path. This check is only made, if there are fewer other cars than positions on the path.
      *
      * @param currentCar   the car that is currently taking its turn.
      * @param acceleration the acceleration direction for the current turn.
      */
     private void processCarMovement(Car currentCar, Direction acceleration) {
         currentCar.accelerate(acceleration);
-        PositionVector startPosition = currentCar.getPosition();
-        PositionVector endPosition = currentCar.nextPosition();
-        List<PositionVector> path = calculatePath(startPosition, endPosition);
-
-        for (PositionVector position: path) {
-            if (processPositionForCar(currentCar, position)) break;
+        PositionVector position = currentCar.getPosition();
+        PositionVector velocity = currentCar.getVelocity();
+        int length = Math.max(Math.abs(velocity.getX()), Math.abs(velocity.getY()));
+        if (length < track.getClearance(position.getX(), position.getY())
+            && track.getCarCount() - 1 < length + 1
+            && !track.hasOtherActiveCarWithin(position.getX(), position.getY(), length, currentCarIndex)) {
+            return;
         }
+        pathTemplates.traverse(position.getX(), position.getY(), velocity.getX(), velocity.getY(), carMovementVisitor);
     }
 
     /**
-     * Processes the action for the car at a given position. This includes handling collisions,
+     * Processes the action for the current car at a given position. This includes handling collisions,
      * moving through track, and crossing the finish line.
      *
-     * @param currentCar the car that is currently being processed.
-     * @param position   the position to process for the given car.
+     * @param x the column of the position to process for the current car.
+     * @param y the row of the position to process for the current car.
+     * @return true if the car crashed or won at this position, false otherwise.
      */
-    private boolean processPositionForCar(Car currentCar, PositionVector position) {
-        SpaceType spaceType = track.getSpaceTypeAtPosition(position);
-        if (checkCollisionWithOtherCars(position)) {
+    private boolean processPositionForCar(int x, int y) {
+        Car currentCar = track.getCar(currentCarIndex);
+        if (checkCollisionWithOtherCars(x, y)) {
+            PositionVector position = new PositionVector(x, y);
             currentCar.crash(position);
-            UserInterface.printCrashInfo(currentCar.getId(), position, "car collision");
+            printCrashInfo(currentCar, position, "car collision");
             return true;
         }
+        SpaceType spaceType = track.spaceTypeAt(x, y);
         return switch (spaceType) {
-            case WALL -> handleWallCollision(currentCar, position);
+            case WALL -> handleWallCollision(currentCar, new PositionVector(x, y));
             case TRACK -> false;
             case FINISH_LEFT, FINISH_RIGHT, FINISH_UP, FINISH_DOWN -> handleFinishLine(currentCar, spaceType);
         };
@@ -211,10 +547,38 @@ public class Game implements GameSpecification {
      */
     private boolean handleWallCollision(Car car, PositionVector position) {
         car.crash(position);
-        UserInterface.printCrashInfo(car.getId(), position, "wall collision");
+        printCrashInfo(car, position, "wall collision");
         return true;
     }
 
+    /**
+     * Prints the crash information with the renderer of the game, and publishes it as event.
+     *
+     * @param car      the car that crashed.
+     * @param position the position of the crash.
+     * @param reason   the reason of the crash.
+     */
+    private void printCrashInfo(Car car, PositionVector position, String reason) {
+        renderer.printCrash(car.getId(), position, reason);
+        publishEvent(GameEvent.Type.CRASHED, currentCarIndex, position, reason);
+    }
+
+    /**
+     * Publishes an event about the given car to the event sink, if there is one.
+     *
+     * @param type     the type of the event.
+     * @param carIndex the index of the car.
+     * @param position the position of the event.
+     * @param detail   the detail of the event, or null.
+     */
+    private void publishEvent(GameEvent.Type type, int carIndex, PositionVector position, String detail) {
+        if (eventSink == null) return;
+        Car car = track.getCar(carIndex);
+        PositionVector velocity = car.getVelocity();
+        eventSink.publish(new GameEvent(type, turnCount, carIndex, car.getId(), position.getX(), position.getY(),
+            velocity.getX(), velocity.getY(), car.getRemainingLaps(), detail));
+    }
+
     /**
      * Processes a position on the track to check for and handle collisions with other cars.
      *
@@ -242,21 +606,29 @@ public class Game implements GameSpecification {
 
     /**
      * Executes post-movement processes for a car, including moving the car, checking for a winner,
-     * and switching to the next car if necessary.
+     * and switching to the next car if necessary. If all cars crashed, the race ends without a winner.
      *
      * @param currentCar the car that has just completed its turn.
      */
     private void processCarPostMovement(Car currentCar) {
         if (!currentCar.isCrashed()) {
             currentCar.move();
+            publishEvent(GameEvent.Type.MOVED, currentCarIndex, currentCar.getPosition(), null);
         }
 
-        if (countActiveCars() == 1) {
+        int activeCarCount = countActiveCars();
+        if (activeCarCount == 0) {
+            endRace(RaceOutcome.ALL_CRASHED, "All cars crashed");
+            return;
+        }
+        if (activeCarCount == 1) {
             setLastRemainingCarAsWinner();
         }
 
         if (winner == NO_WINNER) {
             switchToNextActiveCar();
+        } else {
+            publishEvent(GameEvent.Type.WINNER, winner, track.getCar(winner).getPosition(), null);
         }
     }
 
@@ -275,9 +647,13 @@ public class Game implements GameSpecification {
 
     /**
      * Switches to the next car who is still in the game. Skips crashed cars.
+     * If all cars crashed, the current car is not changed.
      */
     @Override
     public void switchToNextActiveCar() {
+        if (countActiveCars() == 0) {
+            return;
+        }
         do {
             currentCarIndex = (currentCarIndex + 1) % track.getCarCount();
 
@@ -304,10 +680,27 @@ public class Game implements GameSpecification {
     @Override
     public List<PositionVector> calculatePath(PositionVector startPosition, PositionVector endPosition) {
         List<PositionVector> path = new ArrayList<>();
-        int x0 = startPosition.getX();
-        int y0 = startPosition.getY();
-        int x1 = endPosition.getX();
-        int y1 = endPosition.getY();
+        traversePath(startPosition.getX(), startPosition.getY(), endPosition.getX(), endPosition.getY(),
+            (x, y) -> {
+                path.add(new PositionVector(x, y));
+                return false;
+            });
+        return path;
+    }
+
+    /**
+     * Walks all the grid positions in the path between two positions, using the same Bresenham line algorithm
+     * as {@link #calculatePath(PositionVector, PositionVector)}, including the starting and ending positions.<br>
+     * Each position is passed to the visitor, which can stop the traversal early. No objects are allocated.
+     *
+     * @param x0      column of the starting position
+     * @param y0      row of the starting position
+     * @param x1      column of the ending position
+     * @param y1      row of the ending position
+     * @param visitor the visitor called for every position on the path
+     * @return true if the visitor stopped the traversal, false if the ending position was reached
+     */
+    public static boolean traversePath(int x0, int y0, int x1, int y1, PathVisitor visitor) {
         int dx = Math.abs(x1 - x0);
         int dy = Math.abs(y1 - y0);
         int sx = x0 < x1 ? 1 : -1;
@@ -315,9 +708,11 @@ public class Game implements GameSpecification {
         int err = dx - dy;
 
         while (true) {
-            path.add(new PositionVector(x0, y0));
+            if (visitor.visit(x0, y0)) {
+                return true;
+            }
             if (x0 == x1 && y0 == y1) {
-                break;
+                return false;
             }
             int e2 = 2 * err;
             if (e2 > -dy) {
@@ -329,28 +724,17 @@ public class Game implements GameSpecification {
                 y0 += sy;
             }
         }
-
-        return path;
     }
 
     /**
      * Checks if the specified position results in a collision with any of the other cars on the track.
      *
-     * @param position The position to check for collisions.
+     * @param x The column of the position to check for collisions.
+     * @param y The row of the position to check for collisions.
      * @return true if there is a collision with another car at the specified position, false otherwise.
      */
-    private boolean checkCollisionWithOtherCars(PositionVector position) {
-        boolean collision = false;
-        for (int i = 0; i < track.getCarCount(); i++) {
-            if (i != currentCarIndex) {
-                Car otherCar = track.getCar(i);
-                if (otherCar.getPosition().equals(position) && !otherCar.isCrashed()) {
-                    collision = true;
-                    break;
-                }
-            }
-        }
-        return collision;
+    private boolean checkCollisionWithOtherCars(int x, int y) {
+        return track.isOccupiedByOtherActiveCar(x, y, currentCarIndex);
     }
 
     /**
@@ -399,6 +783,7 @@ public class Game implements GameSpecification {
         } else {
             car.goesOverFinishLineBackwards();
         }
+        publishEvent(GameEvent.Type.LAP, currentCarIndex, car.getPosition(), null);
         return false;
     }
 
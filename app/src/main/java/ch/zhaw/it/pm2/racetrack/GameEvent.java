@@ -0,0 +1,62 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Event published by a {@link Game} to its {@link GameEventSink}, describing what happened in a turn.
+ *
+ * @param type          the type of the event
+ * @param turn          the number of the turn in which the event happened, starting with 1
+ * @param carIndex      the index of the car
+ * @param carId         the id of the car
+ * @param x             the column of the position of the car (at the start of the turn for {@link Type#TURN_STARTED}
+ *                      and {@link Type#LAP}), or of the crash
+ * @param y             the row of the position of the car, like x
+ * @param velocityX     the horizontal velocity of the car
+ * @param velocityY     the vertical velocity of the car
+ * @param remainingLaps the number of remaining laps of the car
+ * @param detail        the reason of a crash, or null
+ */
+public record GameEvent(Type type, int turn, int carIndex, char carId, int x, int y, int velocityX, int velocityY,
+                        int remainingLaps, String detail) {
+
+    /**
+     * Type of a game event.
+     */
+    public enum Type {
+        /**
+         * A car starts its turn, at its position with the velocity before the acceleration.
+         */
+        TURN_STARTED(true),
+        /**
+         * A car moved to its new position.
+         */
+        MOVED(true),
+        /**
+         * A car crashed at the position, into a wall or another car.
+         */
+        CRASHED(false),
+        /**
+         * A car crossed the finish line without winning, its number of remaining laps changed.
+         */
+        LAP(false),
+        /**
+         * A car won the race.
+         */
+        WINNER(false);
+
+        private final boolean coalescible;
+
+        Type(boolean coalescible) {
+            this.coalescible = coalescible;
+        }
+
+        /**
+         * Returns whether an event of this type may be replaced by a later event of the same type and car,
+         * if the consumers can not keep up (see {@link GameEventPipeline.Backpressure#COALESCE}).
+         *
+         * @return true if only the latest event of this type per car matters
+         */
+        public boolean isCoalescible() {
+            return coalescible;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Handler of a {@link GameEventPipeline} writing each event as a line of tab-separated values:
+ * turn, car id, event type, x, y, velocity x, velocity y, remaining laps and the detail (empty if there is none).
+ * A batch of events is written and flushed at once.
+ */
+public class GameEventLog implements GameEventPipeline.Handler {
+
+    private static final char SEPARATOR = '\t';
+
+    private final PrintWriter out;
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Creates a log writing UTF-8 text to the given stream.
+     *
+     * @param out the stream to write to
+     */
+    public GameEventLog(OutputStream out) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void handle(List<GameEvent> events) {
+        for (GameEvent event: events) {
+            text.append(event.turn()).append(SEPARATOR)
+                .append(event.carId()).append(SEPARATOR)
+                .append(event.type()).append(SEPARATOR)
+                .append(event.x()).append(SEPARATOR)
+                .append(event.y()).append(SEPARATOR)
+                .append(event.velocityX()).append(SEPARATOR)
+                .append(event.velocityY()).append(SEPARATOR)
+                .append(event.remainingLaps()).append(SEPARATOR)
+                .append(event.detail() == null ? "" : event.detail()).append('\n');
+        }
+        out.append(text);
+        out.flush();
+        text.setLength(0);
+    }
+}
@@ -0,0 +1,365 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes the {@link GameEvent events} of a game to {@link Handler handlers} running on their own threads,
+ * so slow output (e.g. a terminal or a log file) does not slow down the game.
+ *
+ * <p>The events are stored in a bounded ring buffer without locks. The game thread is the only producer: it
+ * writes an event into the next slot and then publishes the sequence number of the slot. Each handler runs on its
+ * own consumer thread, which takes all published events not yet seen by the handler as one batch. A slot is only
+ * reused after all handlers have taken it. Idle threads wait by parking for a short time, so neither side
+ * takes a lock.</p>
+ *
+ * <p>If the buffer is full, because a handler can not keep up, the {@link Backpressure} decides what happens:
+ * the game waits, the event is dropped, or only the latest position events of each car are kept. The numbers of
+ * published, dropped and coalesced events are available with {@link #getStatistics()}.</p>
+ *
+ * <p>A handler throwing an exception or error neither stops the pipeline nor blocks the game: the failed batch is
+ * counted in the statistics, and the first failure is thrown by {@link #close()}.</p>
+ *
+ * <p>The pipeline is opt-in: a game only publishes events after {@link Game#setEventSink(GameEventSink)} was called,
+ * and the interactive game of {@link Racetrack} still renders synchronously, as it prompts the users between the
+ * turns. Games without prompts can render through a {@link RendererEventHandler} instead.</p>
+ *
+ * <p>Handlers are added before {@link #start() starting} the pipeline, and the pipeline is started before the
+ * first event is published. {@link #close()} publishes the pending events, waits until all handlers have
+ * processed them and stops the consumer threads.</p>
+ */
+public final class GameEventPipeline implements GameEventSink, AutoCloseable {
+
+    /**
+     * Default number of events in the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private static final long IDLE_NANOS = 100_000;
+    private static final int SPINS = 100;
+
+    private final GameEvent[] slots;
+    private final int mask;
+    private final Backpressure backpressure;
+    private final AtomicLong published = new AtomicLong();
+    private final List<Consumer> consumers = new ArrayList<>();
+    private volatile Consumer[] startedConsumers = new Consumer[0];
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    // Only used by the producer
+    private long nextSequence;
+    private long minConsumed;
+    private GameEvent[] pending = new GameEvent[0];
+    private int[] pendingOrder = new int[0];
+    private int pendingCount;
+
+    private volatile long publishedEvents;
+    private volatile long droppedEvents;
+    private volatile long coalescedEvents;
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    /**
+     * Creates a pipeline with a buffer of {@link #DEFAULT_CAPACITY} events, blocking the game if it is full.
+     */
+    public GameEventPipeline() {
+        this(DEFAULT_CAPACITY, Backpressure.BLOCK);
+    }
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param capacity     the number of events in the ring buffer, a power of two
+     * @param backpressure what happens if the buffer is full
+     * @throws IllegalArgumentException if capacity is not a positive power of two
+     */
+    public GameEventPipeline(int capacity, Backpressure backpressure) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        slots = new GameEvent[capacity];
+        mask = capacity - 1;
+        this.backpressure = backpressure;
+    }
+
+    /**
+     * Adds a handler, which gets all events published to the pipeline, on its own thread.
+     *
+     * @param handler the handler to add
+     * @throws IllegalStateException if the pipeline was already started
+     */
+    public synchronized void addHandler(Handler handler) {
+        if (started) {
+            throw new IllegalStateException("Handlers must be added before the pipeline is started");
+        }
+        consumers.add(new Consumer(handler, consumers.size()));
+    }
+
+    /**
+     * Starts the consumer threads of the handlers.
+     *
+     * @throws IllegalStateException if the pipeline was already started
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("The pipeline was already started");
+        }
+        started = true;
+        for (Consumer consumer: consumers) {
+            consumer.thread.start();
+        }
+        startedConsumers = consumers.toArray(new Consumer[0]);
+    }
+
+    /**
+     * Publishes an event to all handlers. Must only be called by a single thread, usually the thread playing
+     * the game. If the buffer is full, the event is handled according to the backpressure of the pipeline.
+     *
+     * @param event the event to publish
+     * @throws IllegalStateException if the pipeline was closed
+     */
+    @Override
+    public void publish(GameEvent event) {
+        if (closed) {
+            throw new IllegalStateException("The pipeline was closed");
+        }
+        switch (backpressure) {
+            case BLOCK -> {
+                awaitCapacity();
+                append(event);
+            }
+            case DROP -> {
+                if (hasCapacity()) {
+                    append(event);
+                } else {
+                    droppedEvents++;
+                }
+            }
+            case COALESCE -> {
+                if (event.type().isCoalescible()) {
+                    publishPending(false);
+                    if (pendingCount == 0 && hasCapacity()) {
+                        append(event);
+                    } else {
+                        coalesce(event);
+                    }
+                } else {
+                    // Events which must not be lost wait for the consumers, after the older pending events
+                    publishPending(true);
+                    awaitCapacity();
+                    append(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the pending events, waits until all handlers have processed all events,
+     * and stops the consumer threads. Must be called by the thread publishing the events.
+     *
+     * @throws IllegalStateException if a handler failed, with the first failure as cause
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        publishPending(true);
+        closed = true;
+        Consumer[] consumers = startedConsumers;
+        for (Consumer consumer: consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+        boolean interrupted = false;
+        for (Consumer consumer: consumers) {
+            while (consumer.thread.isAlive()) {
+                try {
+                    consumer.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = firstFailure.get();
+        if (failure != null) {
+            throw new IllegalStateException(failedBatches.get() + " batches of events failed in a handler",
+                failure);
+        }
+    }
+
+    /**
+     * Returns the current statistics of the pipeline.
+     *
+     * @return the statistics of the pipeline
+     */
+    public Statistics getStatistics() {
+        return new Statistics(publishedEvents, droppedEvents, coalescedEvents, failedBatches.get(), slots.length);
+    }
+
+    private void append(GameEvent event) {
+        slots[(int) nextSequence & mask] = event;
+        nextSequence++;
+        published.lazySet(nextSequence);
+        publishedEvents++;
+    }
+
+    /*
+     * Check whether the next slot is free. The slowest consumer is only looked up if the cached value says
+     * the buffer is full.
+     */
+    private boolean hasCapacity() {
+        if (nextSequence - minConsumed < slots.length) {
+            return true;
+        }
+        long min = nextSequence;
+        for (Consumer consumer: startedConsumers) {
+            min = Math.min(min, consumer.consumed.get());
+        }
+        minConsumed = min;
+        return nextSequence - minConsumed < slots.length;
+    }
+
+    private void awaitCapacity() {
+        int spins = 0;
+        while (!hasCapacity()) {
+            if (spins++ < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    /*
+     * Keep the event until there is room in the buffer, replacing an older pending event of the same type and car.
+     */
+    private void coalesce(GameEvent event) {
+        int key = event.carIndex() * 2 + (event.type() == GameEvent.Type.MOVED ? 1 : 0);
+        if (key >= pending.length) {
+            int size = Math.max(key + 1, pending.length * 2);
+            pending = Arrays.copyOf(pending, size);
+            pendingOrder = Arrays.copyOf(pendingOrder, size);
+        }
+        if (pending[key] == null) {
+            pendingOrder[pendingCount++] = key;
+        } else {
+            coalescedEvents++;
+        }
+        pending[key] = event;
+    }
+
+    /*
+     * Publish the pending coalesced events in the order they were first coalesced.
+     * Stops at a full buffer, unless blocking.
+     */
+    private void publishPending(boolean block) {
+        int count = 0;
+        while (count < pendingCount) {
+            if (block) {
+                awaitCapacity();
+            } else if (!hasCapacity()) {
+                break;
+            }
+            int key = pendingOrder[count++];
+            append(pending[key]);
+            pending[key] = null;
+        }
+        System.arraycopy(pendingOrder, count, pendingOrder, 0, pendingCount - count);
+        pendingCount -= count;
+    }
+
+    /**
+     * Consumer thread of a handler, with the sequence of the next event it takes.
+     */
+    private final class Consumer implements Runnable {
+        private final Handler handler;
+        private final AtomicLong consumed = new AtomicLong();
+        private final Thread thread;
+        private final List<GameEvent> batch = new ArrayList<>();
+
+        private Consumer(Handler handler, int number) {
+            this.handler = handler;
+            this.thread = new Thread(this, "game-event-consumer-" + number);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            while (true) {
+                boolean wasClosed = closed;
+                long available = published.get();
+                if (available == next) {
+                    if (wasClosed) return;
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                for (long sequence = next; sequence < available; sequence++) {
+                    batch.add(slots[(int) sequence & mask]);
+                }
+                try {
+                    handler.handle(batch);
+                } catch (Throwable e) {
+                    // A failing handler must neither stop its thread nor block the game, close() reports it
+                    failedBatches.incrementAndGet();
+                    firstFailure.compareAndSet(null, e);
+                }
+                batch.clear();
+                next = available;
+                consumed.lazySet(next);
+            }
+        }
+    }
+
+    /**
+     * What happens if an event is published while the ring buffer is full.
+     */
+    public enum Backpressure {
+        /**
+         * The game waits until the slowest handler has taken an event. No events are lost.
+         */
+        BLOCK,
+        /**
+         * The event is dropped, so the game is never slowed down.
+         */
+        DROP,
+        /**
+         * {@link GameEvent.Type#isCoalescible() Position events} are kept outside the buffer, only the latest one
+         * per type and car, and published as soon as there is room. Other events wait like with {@link #BLOCK},
+         * after the pending position events.
+         */
+        COALESCE
+    }
+
+    /**
+     * Handler of the events of a pipeline, called on its own consumer thread.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * Processes a batch of events, in the order they were published. The list is reused for the next batch,
+         * so it must not be kept after the call.
+         *
+         * @param events the events published since the last batch, at least one
+         */
+        void handle(List<GameEvent> events);
+    }
+
+    /**
+     * Statistics of a pipeline.
+     *
+     * @param published the number of events put into the ring buffer
+     * @param dropped   the number of events dropped, because the buffer was full
+     * @param coalesced the number of events replaced by a later event of the same type and car
+     * @param failed    the number of batches of events for which a handler threw an exception
+     * @param capacity  the number of events in the ring buffer
+     */
+    public record Statistics(long published, long dropped, long coalesced, long failed, int capacity) {
+    }
+}
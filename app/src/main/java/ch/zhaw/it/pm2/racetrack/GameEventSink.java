@@ -0,0 +1,17 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Receives the {@link GameEvent events} of a {@link Game}, see {@link Game#setEventSink(GameEventSink)}.
+ * The events are published on the thread playing the game, so a sink should hand them off quickly,
+ * like the {@link GameEventPipeline}.
+ */
+@FunctionalInterface
+public interface GameEventSink {
+
+    /**
+     * Called for each event of the game, in the order the events happened.
+     *
+     * @param event the event
+     */
+    void publish(GameEvent event);
+}
@@ -0,0 +1,147 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.util.Arrays;
+
+/**
+ * Set of long values, e.g. positions or states encoded by {@link PackedState}, without boxing.
+ *
+ * <p>The values are stored in a single array with open addressing and linear probing. The array is at most half
+ * full, so a lookup usually needs one or two probes. The value 0 marks a free slot, so it is tracked separately.</p>
+ */
+public final class LongHashSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    /**
+     * Creates an empty set.
+     */
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty set with room for the given number of values before it has to grow.
+     *
+     * @param expectedSize the expected number of values
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public LongHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        keys = new long[tableSize(expectedSize)];
+        mask = keys.length - 1;
+    }
+
+    /**
+     * Adds the value to the set.
+     *
+     * @param value the value to add
+     * @return true if the value was not yet in the set
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slot(value, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = value;
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the value is in the set.
+     *
+     * @param value the value to look up
+     * @return true if the value is in the set
+     */
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int slot = slot(value, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of values in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the set contains no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values. The capacity of the set is kept.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        for (long key: oldKeys) {
+            if (key != 0) {
+                int slot = slot(key, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    /*
+     * Return the smallest power of two which keeps the table at most half full with the given number of values.
+     */
+    static int tableSize(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Expected size too large: " + expectedSize);
+        }
+        return capacity;
+    }
+
+    /*
+     * Return the first slot to probe for the key. The key is spread with the golden ratio, so keys differing only
+     * in their upper bits (like the positions of a packed state) do not end up in neighbouring slots.
+     */
+    static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
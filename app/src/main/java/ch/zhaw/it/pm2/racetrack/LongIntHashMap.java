@@ -0,0 +1,157 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.util.Arrays;
+
+/**
+ * Map from long keys, e.g. states encoded by {@link PackedState}, to int values, without boxing.
+ *
+ * <p>Like {@link LongHashSet}, the keys are stored with open addressing and linear probing in an array which is
+ * at most half full, and the values in a parallel array. The key 0 marks a free slot, so it is tracked
+ * separately.</p>
+ */
+public final class LongIntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+    private int zeroValue;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map with room for the given number of entries before it has to grow.
+     *
+     * @param expectedSize the expected number of entries
+     * @throws IllegalArgumentException if expectedSize is negative
+     */
+    public LongIntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        int capacity = LongHashSet.tableSize(expectedSize);
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the value of the key.
+     *
+     * @param key          the key to look up
+     * @param missingValue the value to return if the key is not in the map
+     * @return the value of the key, or missingValue if the key is not in the map
+     */
+    public int get(long key, int missingValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : missingValue;
+        }
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    /**
+     * Checks whether the key is in the map.
+     *
+     * @param key the key to look up
+     * @return true if the key is in the map
+     */
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the value of the key, replacing its previous value.
+     *
+     * @param key   the key
+     * @param value the new value of the key
+     */
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = LongHashSet.slot(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * @return the number of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the map contains no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries. The capacity of the map is kept.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = LongHashSet.slot(oldKeys[i], mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Renderer ignoring all calls, for headless games and simulations.
+ * It has no state, so the single {@link #INSTANCE} is shared by all games.
+ */
+public final class NoOpRenderer implements Renderer {
+
+    /**
+     * The shared instance.
+     */
+    public static final NoOpRenderer INSTANCE = new NoOpRenderer();
+
+    private NoOpRenderer() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void printMessage(String message) {
+    }
+
+    @Override
+    public void printStatus(Track track, char carId) {
+    }
+
+    @Override
+    public void printCrash(char carId, PositionVector position, String reason) {
+    }
+
+    @Override
+    public void printWinner(Track track, char carId) {
+    }
+
+    @Override
+    public void printRaceEnded(Track track, String reason) {
+    }
+
+    @Override
+    public void finish() {
+    }
+}
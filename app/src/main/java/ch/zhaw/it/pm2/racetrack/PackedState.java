@@ -0,0 +1,100 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Encodes positions into an int and states of a car (position and velocity) into a long, so they can be stored
+ * in primitive arrays and collections like {@link LongHashSet} and {@link LongIntHashMap} without creating objects.
+ *
+ * <p>Each component is stored as a signed 16-bit value, so it must be in the range -32768 to 32767.
+ * This covers the grid of every track and positions just outside of it; components outside of this range
+ * are truncated and do not decode to the same values.</p>
+ */
+public final class PackedState {
+
+    private static final int BITS = 16;
+    private static final int MASK = 0xFFFF;
+
+    private PackedState() {
+    }
+
+    /**
+     * Encodes a position into an int.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return the encoded position
+     */
+    public static int position(int x, int y) {
+        return (x << BITS) | (y & MASK);
+    }
+
+    /**
+     * Encodes a position into an int.
+     *
+     * @param position the position
+     * @return the encoded position
+     */
+    public static int position(PositionVector position) {
+        return position(position.getX(), position.getY());
+    }
+
+    /**
+     * @param position an encoded position
+     * @return the column of the position
+     */
+    public static int positionX(int position) {
+        return position >> BITS;
+    }
+
+    /**
+     * @param position an encoded position
+     * @return the row of the position
+     */
+    public static int positionY(int position) {
+        return (short) position;
+    }
+
+    /**
+     * Encodes a state of a car into a long.
+     *
+     * @param x  the column of the position
+     * @param y  the row of the position
+     * @param vx the horizontal velocity
+     * @param vy the vertical velocity
+     * @return the encoded state
+     */
+    public static long state(int x, int y, int vx, int vy) {
+        return ((long) position(x, y) << Integer.SIZE) | (position(vx, vy) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param state an encoded state
+     * @return the column of the position of the state
+     */
+    public static int stateX(long state) {
+        return positionX((int) (state >>> Integer.SIZE));
+    }
+
+    /**
+     * @param state an encoded state
+     * @return the row of the position of the state
+     */
+    public static int stateY(long state) {
+        return positionY((int) (state >>> Integer.SIZE));
+    }
+
+    /**
+     * @param state an encoded state
+     * @return the horizontal velocity of the state
+     */
+    public static int stateVelocityX(long state) {
+        return positionX((int) state);
+    }
+
+    /**
+     * @param state an encoded state
+     * @return the vertical velocity of the state
+     */
+    public static int stateVelocityY(long state) {
+        return positionY((int) state);
+    }
+}
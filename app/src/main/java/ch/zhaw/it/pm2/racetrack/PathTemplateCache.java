@@ -0,0 +1,163 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Cache of the precomputed paths of all moves up to a maximum speed.
+ *
+ * <p>The positions crossed by a move only depend on the velocity (dx, dy), not on the starting position.
+ * So the path of every velocity is calculated once, using {@link Game#traversePath(int, int, int, int, PathVisitor)},
+ * and stored as a template of offsets relative to the starting position. A move is then checked by adding the
+ * offsets of its template to the starting position.</p>
+ *
+ * <p>Each offset is packed into an int, with the x-offset in the upper and the y-offset in the lower 16 bits
+ * (see {@link #offsetX(int)} and {@link #offsetY(int)}). The templates are created in the constructor and never
+ * changed, so a cache can be shared between threads.</p>
+ */
+public final class PathTemplateCache {
+
+    /**
+     * Maximum speed (in both axes) covered by the {@link #getDefault() default cache}.
+     */
+    public static final int DEFAULT_MAX_SPEED = 16;
+
+    /**
+     * Largest maximum speed of a cache. All templates are created in the constructor, and their total size grows
+     * with the cube of the maximum speed: with this limit, they take about 25 MB.
+     */
+    public static final int MAX_SPEED = 128;
+
+    private static final PathTemplateCache DEFAULT = new PathTemplateCache(DEFAULT_MAX_SPEED);
+
+    private final int maxSpeed;
+    private final int size;
+    private final int[][] templates;
+
+    /**
+     * Creates the templates for all velocities with components between -maxSpeed and maxSpeed.
+     *
+     * @param maxSpeed the maximum speed covered by the cache
+     * @throws IllegalArgumentException if maxSpeed is negative or larger than {@link #MAX_SPEED}
+     */
+    public PathTemplateCache(int maxSpeed) {
+        if (maxSpeed < 0 || maxSpeed > MAX_SPEED) {
+            throw new IllegalArgumentException("Invalid maximum speed: " + maxSpeed);
+        }
+        this.maxSpeed = maxSpeed;
+        this.size = 2 * maxSpeed + 1;
+        this.templates = new int[size * size][];
+        for (int dy = -maxSpeed; dy <= maxSpeed; dy++) {
+            for (int dx = -maxSpeed; dx <= maxSpeed; dx++) {
+                templates[templateIndex(dx, dy)] = createTemplate(dx, dy);
+            }
+        }
+    }
+
+    /**
+     * Returns the shared cache covering speeds up to {@link #DEFAULT_MAX_SPEED}.
+     *
+     * @return the default cache
+     */
+    public static PathTemplateCache getDefault() {
+        return DEFAULT;
+    }
+
+    /*
+     * Walk the path from (0,0) to (dx,dy) and pack the offsets of all positions.
+     */
+    private static int[] createTemplate(int dx, int dy) {
+        int[] template = new int[Math.max(Math.abs(dx), Math.abs(dy)) + 1];
+        int[] length = {0};
+        Game.traversePath(0, 0, dx, dy, (x, y) -> {
+            template[length[0]++] = pack(x, y);
+            return false;
+        });
+        return template;
+    }
+
+    /**
+     * Return the maximum speed (in both axes) covered by this cache.
+     *
+     * @return the maximum speed
+     */
+    public int getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * Checks whether the cache contains the template for the given velocity.
+     *
+     * @param dx the x-component of the velocity
+     * @param dy the y-component of the velocity
+     * @return true if the template is cached, false otherwise
+     */
+    public boolean covers(int dx, int dy) {
+        return Math.abs(dx) <= maxSpeed && Math.abs(dy) <= maxSpeed;
+    }
+
+    /**
+     * Return the template of the given velocity, containing the packed offsets of all positions of the path,
+     * including the starting (0,0) and ending (dx,dy) offset.<br/>
+     * The returned array is shared and must not be modified.
+     *
+     * @param dx the x-component of the velocity
+     * @param dy the y-component of the velocity
+     * @return the packed offsets of the path
+     * @throws IllegalArgumentException if the velocity is not covered by the cache
+     */
+    public int[] getTemplate(int dx, int dy) {
+        if (!covers(dx, dy)) {
+            throw new IllegalArgumentException("Velocity (%d, %d) exceeds the maximum speed %d".formatted(dx, dy, maxSpeed));
+        }
+        return templates[templateIndex(dx, dy)];
+    }
+
+    /**
+     * Walks the path of a move from the given starting position with the given velocity.
+     * Uses the cached template, or calculates the path if the velocity is not covered by the cache.
+     *
+     * @param x       column of the starting position
+     * @param y       row of the starting position
+     * @param dx      the x-component of the velocity
+     * @param dy      the y-component of the velocity
+     * @param visitor the visitor called for every position on the path
+     * @return true if the visitor stopped the traversal, false if the ending position was reached
+     */
+    public boolean traverse(int x, int y, int dx, int dy, PathVisitor visitor) {
+        if (!covers(dx, dy)) {
+            return Game.traversePath(x, y, x + dx, y + dy, visitor);
+        }
+        for (int offset: templates[templateIndex(dx, dy)]) {
+            if (visitor.visit(x + offsetX(offset), y + offsetY(offset))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the x-offset of a packed offset.
+     *
+     * @param packedOffset the packed offset
+     * @return the x-offset
+     */
+    public static int offsetX(int packedOffset) {
+        return packedOffset >> 16;
+    }
+
+    /**
+     * Return the y-offset of a packed offset.
+     *
+     * @param packedOffset the packed offset
+     * @return the y-offset
+     */
+    public static int offsetY(int packedOffset) {
+        return (short) packedOffset;
+    }
+
+    private static int pack(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    private int templateIndex(int dx, int dy) {
+        return (dy + maxSpeed) * size + dx + maxSpeed;
+    }
+}
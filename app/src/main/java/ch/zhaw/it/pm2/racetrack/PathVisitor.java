@@ -0,0 +1,18 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Callback for the positions on a path, used by {@link Game#traversePath(int, int, int, int, PathVisitor)}.
+ * The positions are passed as plain coordinates, so walking a path does not allocate any objects.
+ */
+@FunctionalInterface
+public interface PathVisitor {
+
+    /**
+     * Visit the next position on the path.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return true to stop the traversal at this position, false to continue with the next position
+     */
+    boolean visit(int x, int y);
+}
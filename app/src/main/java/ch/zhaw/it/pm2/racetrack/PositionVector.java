@@ -78,7 +78,7 @@ public final class PositionVector {
 
     @Override
     public int hashCode() {
-        return this.x ^ this.y;
+        return 31 * this.x + this.y;
     }
 
     @Override
@@ -0,0 +1,270 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.strategy.DoNotMoveStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.MoveListStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.PathFollowerMoveStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.ShortestPathMoveStrategy;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of a non-interactive run of races, parsed from the command line arguments.
+ *
+ * <p>The races are played with the {@link Simulator}, without any prompts, so the move strategies must not require
+ * user interaction. The strategy of a car is the one given for its id, or the default strategy. Move lists and
+ * waypoint files are taken from the given strategy file of the car, or from the default file in the move or
+ * follower directory of the {@link Config} (see {@link #defaultStrategyFile(Config, MoveStrategy.StrategyType,
+ * File, char)}).</p>
+ *
+ * @param trackFile       the track file to race on
+ * @param defaultStrategy the strategy of the cars without a strategy of their own
+ * @param strategies      the strategies of single cars, by car id
+ * @param strategyFiles   the move list or waypoint files of single cars, by car id
+ * @param repetitions     the number of races to run
+ * @param parallelism     the number of races to run concurrently
+ * @param turnLimit       the maximum number of turns of a race
+ * @param format          the format of the results
+ */
+public record RaceOptions(File trackFile, MoveStrategy.StrategyType defaultStrategy,
+                          Map<Character, MoveStrategy.StrategyType> strategies, Map<Character, File> strategyFiles,
+                          int repetitions, int parallelism, int turnLimit, ResultFormat format) {
+
+    /**
+     * Strategy of the cars, if no strategy is given.
+     */
+    public static final MoveStrategy.StrategyType DEFAULT_STRATEGY = MoveStrategy.StrategyType.PATH_FINDER;
+
+    /**
+     * Description of the command line options.
+     */
+    public static final String USAGE = """
+        Usage: racetrack [options]
+        Without options, the track and the strategies are selected interactively.
+          --track <file>              track file, or name of a file in the track directory (required)
+          --strategy [<car>=]<type>   strategy of a car, or of all cars without a strategy of their own:
+                                      DO_NOT_MOVE, MOVE_LIST, PATH_FOLLOWER or PATH_FINDER (default)
+          --strategy-file <car>=<file> move list or waypoint file of a car
+          --repeat <n>                number of races (default 1)
+          --parallel <n>              number of races run concurrently (default: number of processors)
+          --turn-limit <n>            maximum number of turns of a race (default %d)
+          --format <format>           format of the results: TEXT (default), CSV or JSON
+          --help                      show this help
+        """.formatted(Simulator.DEFAULT_TURN_LIMIT);
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args   the command line arguments
+     * @param config the configuration used to find track files given by name
+     * @return the options
+     * @throws IllegalArgumentException if an option is unknown, misses its value or has an invalid value,
+     *                                  or if no track is given
+     */
+    public static RaceOptions parse(String[] args, Config config) {
+        File trackFile = null;
+        MoveStrategy.StrategyType defaultStrategy = DEFAULT_STRATEGY;
+        Map<Character, MoveStrategy.StrategyType> strategies = new HashMap<>();
+        Map<Character, File> strategyFiles = new HashMap<>();
+        int repetitions = 1;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int turnLimit = Simulator.DEFAULT_TURN_LIMIT;
+        ResultFormat format = ResultFormat.TEXT;
+
+        for (int i = 0; i < args.length; i += 2) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of option " + option);
+            }
+            String value = args[i + 1];
+            switch (option) {
+                case "--track" -> trackFile = findTrackFile(value, config);
+                case "--strategy" -> {
+                    int separator = value.indexOf('=');
+                    if (separator < 0) {
+                        defaultStrategy = parseStrategy(value);
+                    } else {
+                        strategies.put(parseCarId(value, separator), parseStrategy(value.substring(separator + 1)));
+                    }
+                }
+                case "--strategy-file" -> {
+                    int separator = value.indexOf('=');
+                    if (separator < 0) {
+                        throw new IllegalArgumentException("Strategy file must be given as <car>=<file>: " + value);
+                    }
+                    strategyFiles.put(parseCarId(value, separator), new File(value.substring(separator + 1)));
+                }
+                case "--repeat" -> repetitions = parsePositive(option, value);
+                case "--parallel" -> parallelism = parsePositive(option, value);
+                case "--turn-limit" -> turnLimit = parsePositive(option, value);
+                case "--format" -> format = parseFormat(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (trackFile == null) {
+            throw new IllegalArgumentException("No track given, use --track <file>");
+        }
+        return new RaceOptions(trackFile, defaultStrategy, Map.copyOf(strategies), Map.copyOf(strategyFiles),
+            repetitions, parallelism, turnLimit, format);
+    }
+
+    /**
+     * Returns whether the arguments ask for the description of the options.
+     *
+     * @param args the command line arguments
+     * @return true if the arguments contain --help or -h
+     */
+    public static boolean isHelpRequested(String[] args) {
+        return Arrays.asList(args).contains("--help") || Arrays.asList(args).contains("-h");
+    }
+
+    /**
+     * Returns the file used for a move list or waypoint strategy, if no strategy file is given for the car.
+     * Move lists are named {@code <track>-car-<id>.txt} and are in the move directory,
+     * waypoint files are named {@code <track>_handout_points.txt} and are in the follower directory.
+     *
+     * @param config    the configuration with the move and follower directories
+     * @param type      the strategy of the car, {@link MoveStrategy.StrategyType#MOVE_LIST} or
+     *                  {@link MoveStrategy.StrategyType#PATH_FOLLOWER}
+     * @param trackFile the track file the car races on
+     * @param carId     the id of the car
+     * @return the default strategy file of the car
+     * @throws IllegalArgumentException if the strategy does not use a file
+     */
+    public static File defaultStrategyFile(Config config, MoveStrategy.StrategyType type, File trackFile,
+                                           char carId) {
+        String trackName = trackFile.getName();
+        int extension = trackName.lastIndexOf('.');
+        if (extension > 0) {
+            trackName = trackName.substring(0, extension);
+        }
+        return switch (type) {
+            case MOVE_LIST -> new File(config.getMoveDirectory(), trackName + "-car-" + carId + ".txt");
+            case PATH_FOLLOWER -> new File(config.getFollowerDirectory(), trackName + "_handout_points.txt");
+            default -> throw new IllegalArgumentException("Strategy " + type + " does not use a file");
+        };
+    }
+
+    /**
+     * Returns the strategy of the given car.
+     *
+     * @param carId the id of the car
+     * @return the strategy given for the car, or the default strategy
+     */
+    public MoveStrategy.StrategyType strategyOf(char carId) {
+        return strategies.getOrDefault(carId, defaultStrategy);
+    }
+
+    /**
+     * Creates the factory of the move strategies of the cars on the given track. The strategies of the cars
+     * and their files are checked once, so the races do not fail because of a missing file.
+     *
+     * @param layout the layout of the track
+     * @param config the configuration with the directories of the default strategy files
+     * @return the factory creating the strategy of a car, for each race
+     * @throws IllegalArgumentException if an option refers to a car which is not on the track, or a strategy file
+     *                                  does not exist
+     */
+    public Simulator.StrategyFactory createStrategyFactory(TrackLayout layout, Config config) {
+        for (char carId: strategies.keySet()) {
+            checkCarOnTrack(layout, carId, "--strategy");
+        }
+        for (char carId: strategyFiles.keySet()) {
+            checkCarOnTrack(layout, carId, "--strategy-file");
+        }
+        MoveStrategy.StrategyType[] types = new MoveStrategy.StrategyType[layout.getCarCount()];
+        String[] files = new String[layout.getCarCount()];
+        for (int i = 0; i < layout.getCarCount(); i++) {
+            char carId = layout.getCarId(i);
+            types[i] = strategyOf(carId);
+            if (types[i] == MoveStrategy.StrategyType.MOVE_LIST || types[i] == MoveStrategy.StrategyType.PATH_FOLLOWER) {
+                File file = strategyFiles.get(carId);
+                if (file == null) {
+                    file = defaultStrategyFile(config, types[i], trackFile, carId);
+                }
+                if (!file.isFile()) {
+                    throw new IllegalArgumentException("Strategy file of car " + carId + " not found: " + file);
+                }
+                files[i] = file.getPath();
+            }
+        }
+        return (car, track) -> {
+            int carIndex = layout.getCarIndex(car.getId());
+            return switch (types[carIndex]) {
+                case DO_NOT_MOVE -> new DoNotMoveStrategy(NoOpRenderer.INSTANCE);
+                case MOVE_LIST -> new MoveListStrategy(files[carIndex], NoOpRenderer.INSTANCE);
+                case PATH_FOLLOWER -> new PathFollowerMoveStrategy(files[carIndex], car);
+                case PATH_FINDER -> new ShortestPathMoveStrategy(car, track);
+                case USER -> throw new IllegalStateException("User strategy can not be used without prompts");
+            };
+        };
+    }
+
+    private static void checkCarOnTrack(TrackLayout layout, char carId, String option) {
+        if (layout.getCarIndex(carId) < 0) {
+            throw new IllegalArgumentException("Car " + carId + " of option " + option + " is not on the track");
+        }
+    }
+
+    /*
+     * Find the track file as given, or in the track directory, with or without the extension.
+     */
+    private static File findTrackFile(String name, Config config) {
+        File[] candidates = {new File(name), new File(config.getTrackDirectory(), name),
+            new File(config.getTrackDirectory(), name + ".txt")};
+        for (File candidate: candidates) {
+            if (candidate.isFile()) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Track not found: " + name);
+    }
+
+    private static MoveStrategy.StrategyType parseStrategy(String value) {
+        MoveStrategy.StrategyType type = parseEnum(MoveStrategy.StrategyType.class, value, "strategy");
+        if (type == MoveStrategy.StrategyType.USER) {
+            throw new IllegalArgumentException("Strategy USER needs prompts and can not be used from the command line");
+        }
+        return type;
+    }
+
+    private static ResultFormat parseFormat(String value) {
+        return parseEnum(ResultFormat.class, value, "format");
+    }
+
+    /*
+     * Parse the name of an enum constant, ignoring the case and accepting '-' instead of '_'.
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String description) {
+        String name = value.toUpperCase().replace('-', '_');
+        for (E constant: type.getEnumConstants()) {
+            if (constant.name().equals(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + description + ": " + value + ", expected one of "
+            + Arrays.toString(type.getEnumConstants()));
+    }
+
+    private static char parseCarId(String value, int separator) {
+        if (separator != 1) {
+            throw new IllegalArgumentException("Car id must be a single character: " + value.substring(0, separator));
+        }
+        return value.charAt(0);
+    }
+
+    private static int parsePositive(String option, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below, like a number which is not positive
+        }
+        throw new IllegalArgumentException("Value of option " + option + " must be a positive number: " + value);
+    }
+}
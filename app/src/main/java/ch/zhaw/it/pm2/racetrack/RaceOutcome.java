@@ -0,0 +1,32 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * How a race ended, see {@link Game#getOutcome()}.
+ */
+public enum RaceOutcome {
+    /**
+     * The race is still in progress.
+     */
+    RUNNING,
+    /**
+     * A car won the race.
+     */
+    WON,
+    /**
+     * The race made no progress: no new race state was reached within the stall limit of the game,
+     * e.g. because all remaining cars stand still.
+     */
+    STALLED,
+    /**
+     * All cars crashed, so no car can win the race.
+     */
+    ALL_CRASHED,
+    /**
+     * The race reached the turn limit of the game without a winner.
+     */
+    TURN_LIMIT,
+    /**
+     * A move strategy ended the race by returning no move, e.g. because the user quit.
+     */
+    ABORTED
+}
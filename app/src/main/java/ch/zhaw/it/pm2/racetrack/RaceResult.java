@@ -0,0 +1,30 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Result of a single race played by the {@link Simulator}.
+ *
+ * @param raceNumber  the zero-based number of the race within its batch
+ * @param winnerIndex the index of the winning car, or {@link Game#NO_WINNER} if the race ended without a winner
+ * @param winnerId    the id of the winning car, or {@link #NO_WINNER_ID} if the race ended without a winner
+ * @param turns       the number of turns played
+ * @param crashes     the number of cars which crashed during the race
+ * @param outcome     how the race ended
+ * @param reason      a description of why the race ended
+ */
+public record RaceResult(int raceNumber, int winnerIndex, char winnerId, int turns, int crashes,
+                         RaceOutcome outcome, String reason) {
+
+    /**
+     * Id used if the race ended without a winner.
+     */
+    public static final char NO_WINNER_ID = '-';
+
+    /**
+     * Returns whether the race ended with a winner.
+     *
+     * @return true if a car won the race, false otherwise
+     */
+    public boolean hasWinner() {
+        return winnerIndex != Game.NO_WINNER;
+    }
+}
@@ -4,21 +4,96 @@ import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
 
 /**
  * Main class of the application.
+ *
+ * <p>Without command line arguments, the track and the move strategies are selected interactively and the race is
+ * shown in the terminal. With arguments, the races are run without any prompts as described by the
+ * {@link RaceOptions}, and the results are written to the standard output.</p>
  */
 public class Racetrack {
     Config config = new Config();
 
+    /**
+     * Exit status of a run with an invalid track file, or a race which failed.
+     */
+    public static final int EXIT_FAILURE = 1;
+
+    /**
+     * Exit status of a run with invalid command line options.
+     */
+    public static final int EXIT_USAGE = 2;
+
     /**
      * Main method of the application.
      *
-     * @param args the command line arguments
+     * @param args the command line arguments, see {@link RaceOptions#USAGE}
      */
     public static void main(String[] args) {
-        Racetrack racetrack = new Racetrack();
-        racetrack.init();
+        if (args.length == 0) {
+            Racetrack racetrack = new Racetrack();
+            racetrack.init();
+            return;
+        }
+        int status = runCommandLine(args, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the races described by the command line options, without any prompts.
+     *
+     * @param args the command line arguments, see {@link RaceOptions#USAGE}
+     * @param out  the stream the results are written to
+     * @param err  the stream errors are written to
+     * @return the exit status: 0 on success, {@link #EXIT_USAGE} for invalid options,
+     * {@link #EXIT_FAILURE} if the track can not be read or a race fails
+     */
+    static int runCommandLine(String[] args, PrintStream out, PrintStream err) {
+        if (RaceOptions.isHelpRequested(args)) {
+            out.print(RaceOptions.USAGE);
+            return 0;
+        }
+        Config config = new Config();
+        RaceOptions options;
+        try {
+            options = RaceOptions.parse(args, config);
+        } catch (IllegalArgumentException e) {
+            return printUsageError(e, err);
+        }
+        TrackLayout layout;
+        try {
+            layout = TrackCache.getDefault().get(options.trackFile());
+        } catch (IOException | InvalidFileFormatException e) {
+            err.println("Invalid track file " + options.trackFile() + ": " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+        Simulator.StrategyFactory strategyFactory;
+        try {
+            strategyFactory = options.createStrategyFactory(layout, config);
+        } catch (IllegalArgumentException e) {
+            return printUsageError(e, err);
+        }
+
+        try (Simulator simulator = new Simulator(options.parallelism(), options.turnLimit())) {
+            List<RaceResult> results = simulator.runBatch(layout, strategyFactory, options.repetitions());
+            options.format().write(options.trackFile().getName(), results, out);
+        } catch (RuntimeException e) {
+            // Any failure of a race, e.g. of a move strategy, is reported as exit status instead of a stack trace
+            err.println("Race failed: " + e);
+            return EXIT_FAILURE;
+        }
+        return 0;
+    }
+
+    private static int printUsageError(IllegalArgumentException e, PrintStream err) {
+        err.println(e.getMessage());
+        err.print(RaceOptions.USAGE);
+        return EXIT_USAGE;
     }
 
     /**
@@ -29,7 +104,7 @@ public class Racetrack {
 
         File trackFile = selectTrackFile();
         Track track = createTrack(trackFile);
-        setCarStrategies(track);
+        setCarStrategies(track, trackFile);
 
         run(track);
     }
@@ -40,14 +115,20 @@ public class Racetrack {
      * @return the selected track file
      */
     private File selectTrackFile() {
-        File[] listOfFiles = config.getTrackDirectory().listFiles();
-        if (listOfFiles == null) {
+        TrackCatalog catalog;
+        try {
+            catalog = TrackCatalog.open(config.getTrackDirectory());
+        } catch (IOException e) {
+            throw new RuntimeException("No tracks found in " + config.getTrackDirectory(), e);
+        }
+        List<TrackCatalog.TrackInfo> tracks = catalog.find(info -> true);
+        if (tracks.isEmpty()) {
             throw new RuntimeException("No tracks found in " + config.getTrackDirectory());
         }
 
-        UserInterface.printTrackSelectionPrompt(listOfFiles);
-        int trackNumber = UserInterface.readTrackNumber(listOfFiles.length);
-        return listOfFiles[trackNumber - 1];
+        UserInterface.printTrackSelectionPrompt(tracks);
+        int trackNumber = UserInterface.readTrackNumber(tracks.size());
+        return catalog.getTrackFile(tracks.get(trackNumber - 1));
     }
 
     /**
@@ -58,31 +139,39 @@ public class Racetrack {
      */
     private Track createTrack(File trackFile) {
         try {
-            return new Track(trackFile);
+            return new Track(TrackCache.getDefault().get(trackFile));
         } catch (IOException | InvalidFileFormatException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Sets the move strategies for the cars on the track.
+     * Sets the move strategies for the cars on the track. Move lists and waypoints are read from the
+     * {@link RaceOptions#defaultStrategyFile(Config, MoveStrategy.StrategyType, File, char) default files} of the track.
      *
-     * @param track the track
+     * @param track     the track
+     * @param trackFile the file of the track
      */
-    private void setCarStrategies(Track track) {
+    private void setCarStrategies(Track track, File trackFile) {
         for (Car car: track.getCars().values()) {
-            MoveStrategy moveStrategy = UserInterface.promptMoveStrategy(car, track);
+            File moveListFile = RaceOptions.defaultStrategyFile(config, MoveStrategy.StrategyType.MOVE_LIST, trackFile,
+                car.getId());
+            File waypointFile = RaceOptions.defaultStrategyFile(config, MoveStrategy.StrategyType.PATH_FOLLOWER,
+                trackFile, car.getId());
+            MoveStrategy moveStrategy = UserInterface.promptMoveStrategy(car, track, moveListFile, waypointFile);
             car.setMoveStrategy(moveStrategy);
         }
     }
 
     /**
      * Runs the game with the given track.
+     * The game is rendered synchronously, as the moves of users are read after its status was printed. Publishing
+     * the events to a {@link GameEventPipeline} is opt-in, for games whose output must not slow them down.
      *
      * @param track the track
      */
     private void run(final Track track) {
-        Game game = new Game(track);
+        Game game = new Game(track, new TextIoRenderer());
         game.startGame();
     }
 }
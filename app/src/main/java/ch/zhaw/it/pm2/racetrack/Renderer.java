@@ -0,0 +1,67 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Output backend of a {@link Game} and the move strategies.
+ *
+ * <p>The game and the strategies report what happens to the renderer they were created with, instead of printing to
+ * the terminal themselves. So the same code is used for interactive games ({@link TextIoRenderer}), for logs or
+ * pipes ({@link StdoutRenderer}), and for simulations without any output ({@link NoOpRenderer}).</p>
+ *
+ * <p>Callers building a message only for the renderer (e.g. concatenating strings) should check
+ * {@link #isEnabled()} first, so a disabled renderer costs neither time nor allocations.</p>
+ */
+public interface Renderer {
+
+    /**
+     * Returns whether the renderer produces any output.
+     *
+     * @return false if all calls are ignored, true otherwise
+     */
+    boolean isEnabled();
+
+    /**
+     * Prints a message, e.g. of a move strategy.
+     *
+     * @param message the message to print
+     */
+    void printMessage(String message);
+
+    /**
+     * Prints the game status before the turn of a car.
+     *
+     * @param track the track on which the game is played
+     * @param carId the id of the car to move next
+     */
+    void printStatus(Track track, char carId);
+
+    /**
+     * Prints that a car crashed.
+     *
+     * @param carId    the id of the car that crashed
+     * @param position the position of the crash
+     * @param reason   the reason why the car crashed
+     */
+    void printCrash(char carId, PositionVector position, String reason);
+
+    /**
+     * Prints the final game status of a race which was won.
+     *
+     * @param track the track on which the game was played
+     * @param carId the id of the car that won the game
+     */
+    void printWinner(Track track, char carId);
+
+    /**
+     * Prints the final game status of a race which ended without a winner.
+     *
+     * @param track  the track on which the game was played
+     * @param reason the reason why the race ended
+     */
+    void printRaceEnded(Track track, String reason);
+
+    /**
+     * Called once when the game loop has ended, after the final game status was printed.
+     * Writes out buffered output, or waits for the user to quit.
+     */
+    void finish();
+}
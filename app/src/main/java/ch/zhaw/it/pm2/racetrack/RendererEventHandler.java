@@ -0,0 +1,43 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.util.List;
+
+/**
+ * Handler of a {@link GameEventPipeline} reporting the crashes, laps and the winner of a race to a {@link Renderer},
+ * so slow output does not slow down the game.
+ *
+ * <p>The renderer is only called on the consumer thread of the handler. The position events are not rendered,
+ * because printing the game status needs the track, which is changed by the game thread at the same time.
+ * The game itself should be created with a {@link NoOpRenderer}, otherwise the crashes are printed twice.
+ * {@link Renderer#finish()} is not called by the handler, it is left to the caller after closing the pipeline.</p>
+ */
+public class RendererEventHandler implements GameEventPipeline.Handler {
+
+    private final Renderer renderer;
+
+    /**
+     * Creates a handler reporting to the given renderer.
+     *
+     * @param renderer the renderer printing the events
+     */
+    public RendererEventHandler(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    @Override
+    public void handle(List<GameEvent> events) {
+        if (!renderer.isEnabled()) return;
+        for (GameEvent event: events) {
+            switch (event.type()) {
+                case CRASHED -> renderer.printCrash(event.carId(), new PositionVector(event.x(), event.y()),
+                    event.detail());
+                case LAP -> renderer.printMessage("Car <" + event.carId() + "> crossed the finish line, "
+                    + event.remainingLaps() + " laps remaining");
+                case WINNER -> renderer.printMessage("Car <" + event.carId() + "> wins the game!");
+                default -> {
+                    // Position events need the track, see the class description
+                }
+            }
+        }
+    }
+}
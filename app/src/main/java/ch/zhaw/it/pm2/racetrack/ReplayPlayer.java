@@ -0,0 +1,406 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Plays a replay file written by a {@link ReplayRecorder}, on a headless {@link Game} of the track the race was
+ * recorded on.
+ *
+ * <p>The recorded turns are played with {@link Game#doCarTurn(Direction)} at full engine speed, without any output.
+ * The outcome of every turn (position, crash, laps and winner) is compared with the recording, so a replay of
+ * another track or engine version is detected instead of showing a different race.</p>
+ *
+ * <p>{@link #seek(int)} restores the last keyframe before the wanted turn (unless the game is already between the
+ * keyframe and the turn) and plays the turns from there, so seeking plays at most one keyframe interval of turns.
+ * The keyframes are found with the index in the footer of the file, or by reading the whole file if the recording
+ * was not closed. A truncated last record of such a file is ignored.</p>
+ */
+public final class ReplayPlayer {
+
+    private final ByteBuffer buffer;
+    private final int end;
+    private final int keyframeInterval;
+    private final Track track;
+    private final Game game;
+    private final int[] snapshot;
+    private int[] keyframeTurns = new int[16];
+    private int[] keyframeOffsets = new int[16];
+    private int keyframeCount;
+    private int lastTurn;
+
+    // The last turn read from the file, which is ahead of the game while a record is pending
+    private int recordedTurn;
+    private int pendingSkips;
+    private boolean movePending;
+
+    // The fields of the last record read
+    private Direction direction;
+    private int flags;
+    private int deltaX;
+    private int deltaY;
+    private int remainingLaps;
+    private int winner;
+
+    /**
+     * Opens a replay file and positions the player at the first recorded turn.
+     *
+     * @param replayFile the replay file to play
+     * @param layout     the layout of the track the race was recorded on
+     * @throws IOException                if the file can not be read
+     * @throws InvalidFileFormatException if the file is not a valid replay file, or was recorded on another track
+     */
+    public ReplayPlayer(File replayFile, TrackLayout layout) throws IOException, InvalidFileFormatException {
+        try (FileChannel channel = FileChannel.open(replayFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new InvalidFileFormatException("Replay file too large: " + channel.size() + " bytes");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        track = new Track(layout);
+        game = new Game(track, NoOpRenderer.INSTANCE);
+        snapshot = new int[game.getSnapshotSize()];
+        try {
+            keyframeInterval = readHeader(layout);
+            int bodyStart = buffer.position();
+            end = hasFooter(bodyStart) ? readFooter() : scanKeyframes(bodyStart);
+        } catch (BufferUnderflowException e) {
+            throw new InvalidFileFormatException("Replay file is truncated");
+        }
+        if (keyframeCount == 0) {
+            throw new InvalidFileFormatException("Replay file has no keyframe");
+        }
+        restoreKeyframe(0);
+    }
+
+    /**
+     * Returns the headless game the replay is played on. It must only be read, as changing it would make it
+     * differ from the recording.
+     *
+     * @return the game of the replay
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the track the replay is played on, which holds the cars of the {@link #getGame() game}.
+     *
+     * @return the track of the replay
+     */
+    public Track getTrack() {
+        return track;
+    }
+
+    /**
+     * Returns the current turn, the number of turns played in the race so far.
+     *
+     * @return the turn count of the game
+     */
+    public int getTurn() {
+        return game.getTurnCount();
+    }
+
+    /**
+     * Returns the turn the recording started at, usually 0.
+     *
+     * @return the first turn which can be sought
+     */
+    public int getFirstTurn() {
+        return keyframeTurns[0];
+    }
+
+    /**
+     * Returns the last recorded turn.
+     *
+     * @return the last turn which can be sought
+     */
+    public int getLastTurn() {
+        return lastTurn;
+    }
+
+    /**
+     * Returns the number of turns after which the recorder wrote a keyframe.
+     *
+     * @return the keyframe interval of the recording
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Returns the number of keyframes in the replay file.
+     *
+     * @return the number of keyframes
+     */
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    /**
+     * Plays the next recorded turn.
+     *
+     * @return true if a turn was played, false if the end of the recording was reached
+     * @throws InvalidFileFormatException if the file is damaged, or the outcome of the turn differs from the recording
+     */
+    public boolean step() throws InvalidFileFormatException {
+        try {
+            while (true) {
+                if (pendingSkips > 0) {
+                    playSkippedTurn();
+                    return true;
+                }
+                if (movePending) {
+                    movePending = false;
+                    playMove();
+                    return true;
+                }
+                if (buffer.position() >= end) {
+                    return false;
+                }
+                readItem();
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidFileFormatException("Replay file is truncated");
+        }
+    }
+
+    /**
+     * Brings the game to the state after the given turn.
+     *
+     * @param turn the turn to seek to, between {@link #getFirstTurn()} and {@link #getLastTurn()}
+     * @throws IllegalArgumentException   if the turn was not recorded
+     * @throws InvalidFileFormatException if the file is damaged, or the outcome of a turn differs from the recording
+     */
+    public void seek(int turn) throws InvalidFileFormatException {
+        if (turn < getFirstTurn() || turn > lastTurn) {
+            throw new IllegalArgumentException("Turn " + turn + " is not recorded, the replay has turns "
+                + getFirstTurn() + " to " + lastTurn);
+        }
+        int keyframe = Arrays.binarySearch(keyframeTurns, 0, keyframeCount, turn);
+        if (keyframe < 0) {
+            keyframe = -keyframe - 2;
+        }
+        if (turn < getTurn() || keyframeTurns[keyframe] > getTurn()) {
+            restoreKeyframe(keyframe);
+        }
+        while (getTurn() < turn) {
+            if (!step()) {
+                throw new InvalidFileFormatException("Replay ends at turn " + getTurn() + " instead of " + lastTurn);
+            }
+        }
+    }
+
+    /*
+     * Read and check the header, leaving the buffer positioned at the body. Returns the keyframe interval.
+     */
+    private int readHeader(TrackLayout layout) throws InvalidFileFormatException {
+        if (buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new InvalidFileFormatException("Not a replay file");
+        }
+        short version = buffer.getShort();
+        if (version != ReplayRecorder.VERSION) {
+            throw new InvalidFileFormatException("Unsupported replay version: " + version);
+        }
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int carCount = buffer.getInt();
+        boolean sameTrack = width == layout.getWidth() && height == layout.getHeight()
+            && carCount == layout.getCarCount();
+        for (int i = 0; sameTrack && i < carCount; i++) {
+            sameTrack = buffer.getChar() == layout.getCarId(i);
+        }
+        if (!sameTrack) {
+            throw new InvalidFileFormatException("Replay was recorded on another track");
+        }
+        int interval = buffer.getInt();
+        if (interval < 1) {
+            throw new InvalidFileFormatException("Invalid keyframe interval: " + interval);
+        }
+        return interval;
+    }
+
+    private boolean hasFooter(int bodyStart) {
+        int trailer = buffer.limit() - ReplayRecorder.TRAILER_SIZE;
+        return trailer >= bodyStart && buffer.getInt(trailer + Long.BYTES) == ReplayRecorder.MAGIC;
+    }
+
+    /*
+     * Read the keyframe index from the footer. Returns the offset of the footer, which is the end of the records.
+     */
+    private int readFooter() throws InvalidFileFormatException {
+        long footerOffset = buffer.getLong(buffer.limit() - ReplayRecorder.TRAILER_SIZE);
+        if (footerOffset < buffer.position() || footerOffset >= buffer.limit()) {
+            throw new InvalidFileFormatException("Invalid footer offset: " + footerOffset);
+        }
+        buffer.position((int) footerOffset);
+        if ((buffer.get() & 0xFF) != ReplayRecorder.FOOTER) {
+            throw new InvalidFileFormatException("Replay footer not found");
+        }
+        lastTurn = readVarInt();
+        int count = readVarInt();
+        int turn = 0;
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            turn += readVarInt();
+            offset += readVarLong();
+            if (offset >= footerOffset) {
+                throw new InvalidFileFormatException("Invalid keyframe offset: " + offset);
+            }
+            addKeyframe(turn, (int) offset);
+        }
+        return (int) footerOffset;
+    }
+
+    /*
+     * Find the keyframes by reading all records, for a recording which was not closed.
+     * Returns the end of the last complete record.
+     */
+    private int scanKeyframes(int bodyStart) throws InvalidFileFormatException {
+        buffer.position(bodyStart);
+        int complete = bodyStart;
+        try {
+            while (buffer.hasRemaining()) {
+                int offset = buffer.position();
+                int marker = buffer.get(offset) & 0xFF;
+                if (marker == ReplayRecorder.FOOTER) break;
+                readItem();
+                if (marker == ReplayRecorder.KEYFRAME) {
+                    addKeyframe(recordedTurn, offset);
+                }
+                complete = buffer.position();
+                lastTurn = recordedTurn;
+            }
+        } catch (BufferUnderflowException e) {
+            // The last record was not completely written
+        }
+        return complete;
+    }
+
+    private void addKeyframe(int turn, int offset) {
+        if (keyframeCount == keyframeTurns.length) {
+            keyframeTurns = Arrays.copyOf(keyframeTurns, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTurns[keyframeCount] = turn;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+    }
+
+    private void restoreKeyframe(int keyframe) throws InvalidFileFormatException {
+        try {
+            buffer.position(keyframeOffsets[keyframe]);
+            readItem();
+        } catch (BufferUnderflowException e) {
+            throw new InvalidFileFormatException("Replay file is truncated");
+        }
+        if (recordedTurn != keyframeTurns[keyframe]) {
+            throw new InvalidFileFormatException("Keyframe index does not match keyframe at turn " + recordedTurn);
+        }
+        game.restore(snapshot);
+        pendingSkips = 0;
+        movePending = false;
+    }
+
+    /*
+     * Read the next keyframe or turn record. A keyframe is read into the snapshot, the turns up to it are skipped.
+     * The fields of a turn record are kept until the turn is played.
+     */
+    private void readItem() throws InvalidFileFormatException {
+        int head = buffer.get() & 0xFF;
+        if (head == ReplayRecorder.KEYFRAME) {
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = readSignedVarInt();
+            }
+            pendingSkips = snapshot[2] - recordedTurn;
+            recordedTurn = snapshot[2];
+            return;
+        }
+        int ordinal = head >>> 4;
+        if (ordinal >= Direction.values().length) {
+            throw new InvalidFileFormatException("Invalid replay record: " + head);
+        }
+        direction = Direction.values()[ordinal];
+        flags = head & 0x0F;
+        int skipped = (flags & ReplayRecorder.FLAG_SKIPPED) != 0 ? readVarInt() : 0;
+        deltaX = readSignedVarInt();
+        deltaY = readSignedVarInt();
+        if ((flags & ReplayRecorder.FLAG_CRASHED) != 0) {
+            // The crash position is only recorded for audits, the game does not keep it
+            readSignedVarInt();
+            readSignedVarInt();
+        }
+        remainingLaps = (flags & ReplayRecorder.FLAG_LAP) != 0 ? readVarInt() : -1;
+        winner = (flags & ReplayRecorder.FLAG_WINNER) != 0 ? readVarInt() : Game.NO_WINNER;
+        pendingSkips = skipped;
+        movePending = true;
+        recordedTurn += skipped + 1;
+    }
+
+    /*
+     * Play a turn of a crashed car, which only passes the turn to the next car.
+     */
+    private void playSkippedTurn() throws InvalidFileFormatException {
+        if (!track.getCar(game.getCurrentCarIndex()).isCrashed()) {
+            throw mismatch("the skipped car did not crash");
+        }
+        game.doCarTurn(Direction.NONE);
+        pendingSkips--;
+    }
+
+    /*
+     * Play the recorded move, and compare the outcome with the recording.
+     */
+    private void playMove() throws InvalidFileFormatException {
+        Car car = track.getCar(game.getCurrentCarIndex());
+        PositionVector start = car.getPosition();
+        game.doCarTurn(direction);
+        PositionVector position = car.getPosition();
+        if (position.getX() - start.getX() != deltaX || position.getY() - start.getY() != deltaY) {
+            throw mismatch("car <" + car.getId() + "> moved to " + position);
+        }
+        if (car.isCrashed() != ((flags & ReplayRecorder.FLAG_CRASHED) != 0)) {
+            throw mismatch("car <" + car.getId() + "> " + (car.isCrashed() ? "crashed" : "did not crash"));
+        }
+        if (remainingLaps >= 0 && car.getRemainingLaps() != remainingLaps) {
+            throw mismatch("car <" + car.getId() + "> has " + car.getRemainingLaps() + " remaining laps");
+        }
+        if (game.getWinner() != winner) {
+            throw mismatch("the winner is " + game.getWinner());
+        }
+    }
+
+    private InvalidFileFormatException mismatch(String reason) {
+        return new InvalidFileFormatException("Replay does not match the game in turn " + getTurn() + ": " + reason);
+    }
+
+    private int readVarInt() throws InvalidFileFormatException {
+        long value = readVarLong();
+        if (value > 0xFFFFFFFFL) {
+            throw new InvalidFileFormatException("Invalid number in replay file: " + value);
+        }
+        return (int) value;
+    }
+
+    private int readSignedVarInt() throws InvalidFileFormatException {
+        int value = readVarInt();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private long readVarLong() throws InvalidFileFormatException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new InvalidFileFormatException("Invalid number in replay file");
+    }
+}
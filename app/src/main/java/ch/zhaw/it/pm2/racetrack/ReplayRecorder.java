@@ -0,0 +1,338 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Records the turns of a game to a compact, append-only binary replay file, which can be played with a
+ * {@link ReplayPlayer}.
+ *
+ * <p>The recorder is the {@link GameEventSink} of the game it records, and writes one record per turn, derived from
+ * the events of the turn. All numbers of the header and the trailer are big endian. Numbers in the records are
+ * variable length (7 bits per byte, the lowest bits first), signed numbers are zigzag encoded, so small values
+ * of either sign take one byte.</p>
+ * <ul>
+ *   <li>header: magic number {@link #MAGIC}, format {@link #VERSION}, width and height of the track,
+ *       number of cars followed by the id of each car, and the keyframe interval</li>
+ *   <li>turn record: one byte with the ordinal of the chosen {@link Direction} in the upper four bits and the
+ *       flags of the turn in the lower four bits, followed by the number of skipped turns (if
+ *       {@link #FLAG_SKIPPED}), the position delta of the car, the crash position relative to the start of the
+ *       turn (if {@link #FLAG_CRASHED}), the remaining laps (if {@link #FLAG_LAP}) and the index of the winner
+ *       (if {@link #FLAG_WINNER})</li>
+ *   <li>keyframe: the byte {@link #KEYFRAME}, followed by the {@link Game#snapshot() snapshot} of the game after the
+ *       turn in its turn count, as signed numbers</li>
+ *   <li>footer: the byte {@link #FOOTER}, the last recorded turn, and the number of keyframes followed by the turn
+ *       and file offset of each keyframe</li>
+ *   <li>trailer: the file offset of the footer as long, and the magic number again</li>
+ * </ul>
+ *
+ * <p>A keyframe is written before the first turn and then at least every {@link #getKeyframeInterval() keyframe
+ * interval} turns, so a player can seek to any turn by restoring the keyframe before it and playing at most
+ * one interval of turns. The footer and the trailer are written by {@link #close()}. If they are missing, because
+ * the recording was not closed, the player finds the keyframes by reading the whole file.</p>
+ *
+ * <p>The recorder must be set directly as event sink of the game (not behind a {@link GameEventPipeline}), as it
+ * takes the keyframes from the game on the thread playing it. Writing errors are thrown as
+ * {@link UncheckedIOException}, as the events are published by the game.</p>
+ */
+public final class ReplayRecorder implements GameEventSink, AutoCloseable {
+
+    /**
+     * Magic number at the start and at the end of a replay file ("RPLY").
+     */
+    public static final int MAGIC = 0x52504C59;
+
+    /**
+     * Version of the format written by this class.
+     */
+    public static final short VERSION = 1;
+
+    /**
+     * Default number of turns between two keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    static final int FLAG_CRASHED = 1;
+    static final int FLAG_LAP = 1 << 1;
+    static final int FLAG_WINNER = 1 << 2;
+    static final int FLAG_SKIPPED = 1 << 3;
+    static final int KEYFRAME = 0xF0;
+    static final int FOOTER = 0xE0;
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Game game;
+    private final OutputStream out;
+    private final int keyframeInterval;
+    private final int[] snapshot;
+    private long offset;
+    private boolean closed;
+
+    private int[] keyframeTurns = new int[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount;
+    private int lastTurn;
+
+    // The turn being recorded, written when the next turn starts or the recording is closed
+    private boolean turnPending;
+    private int turn;
+    private int startX;
+    private int startY;
+    private int startVelocityX;
+    private int startVelocityY;
+    private int endX;
+    private int endY;
+    private int velocityX;
+    private int velocityY;
+    private int flags;
+    private int crashX;
+    private int crashY;
+    private int remainingLaps;
+    private int winner;
+
+    /**
+     * Creates a recorder with the {@link #DEFAULT_KEYFRAME_INTERVAL default keyframe interval}.
+     *
+     * @param replayFile the file to write, replaced if it exists
+     * @param game       the game to record, which must be given the recorder as event sink
+     * @throws IOException if the file can not be written
+     */
+    public ReplayRecorder(File replayFile, Game game) throws IOException {
+        this(replayFile, game, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates a recorder and writes the header and a keyframe of the current state of the game.
+     *
+     * @param replayFile       the file to write, replaced if it exists
+     * @param game             the game to record, which must be given the recorder as event sink
+     * @param keyframeInterval the number of turns after which a keyframe is written
+     * @throws IOException              if the file can not be written
+     * @throws IllegalArgumentException if the keyframe interval is not positive
+     */
+    public ReplayRecorder(File replayFile, Game game, int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.game = game;
+        this.keyframeInterval = keyframeInterval;
+        this.snapshot = new int[game.getSnapshotSize()];
+        this.out = new BufferedOutputStream(Files.newOutputStream(replayFile.toPath()), BUFFER_SIZE);
+        Track track = game.getTrack();
+        writeInt(MAGIC);
+        writeByte(VERSION >>> 8);
+        writeByte(VERSION);
+        writeInt(track.getWidth());
+        writeInt(track.getHeight());
+        writeInt(track.getCarCount());
+        for (int i = 0; i < track.getCarCount(); i++) {
+            char id = track.getCar(i).getId();
+            writeByte(id >>> 8);
+            writeByte(id);
+        }
+        writeInt(keyframeInterval);
+        game.snapshot(snapshot);
+        writeKeyframe();
+    }
+
+    /**
+     * Returns the number of turns after which a keyframe is written.
+     *
+     * @return the keyframe interval
+     */
+    public int getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the size of the replay file, once the buffered bytes are written
+     */
+    public long getSize() {
+        return offset;
+    }
+
+    /**
+     * Records an event of the game.
+     *
+     * @param event the event to record
+     * @throws UncheckedIOException  if writing the file fails
+     * @throws IllegalStateException if the recorder was closed
+     */
+    @Override
+    public void publish(GameEvent event) {
+        if (closed) {
+            throw new IllegalStateException("The recorder was closed");
+        }
+        try {
+            switch (event.type()) {
+                case TURN_STARTED -> startTurn(event);
+                case MOVED -> {
+                    endX = event.x();
+                    endY = event.y();
+                    velocityX = event.velocityX();
+                    velocityY = event.velocityY();
+                }
+                case CRASHED -> {
+                    flags |= FLAG_CRASHED;
+                    crashX = event.x();
+                    crashY = event.y();
+                    velocityX = event.velocityX();
+                    velocityY = event.velocityY();
+                }
+                case LAP -> {
+                    flags |= FLAG_LAP;
+                    remainingLaps = event.remainingLaps();
+                }
+                case WINNER -> {
+                    flags |= FLAG_WINNER;
+                    winner = event.carIndex();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the last turn, the footer and the trailer, and closes the file.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try (out) {
+            writePendingTurn();
+            long footerOffset = offset;
+            writeByte(FOOTER);
+            writeVarInt(lastTurn);
+            writeVarInt(keyframeCount);
+            int previousTurn = 0;
+            long previousOffset = 0;
+            for (int i = 0; i < keyframeCount; i++) {
+                writeVarInt(keyframeTurns[i] - previousTurn);
+                writeVarLong(keyframeOffsets[i] - previousOffset);
+                previousTurn = keyframeTurns[i];
+                previousOffset = keyframeOffsets[i];
+            }
+            writeInt((int) (footerOffset >>> 32));
+            writeInt((int) footerOffset);
+            writeInt(MAGIC);
+        }
+    }
+
+    /*
+     * Write the previous turn, and a keyframe of the state before the new turn if the interval has passed.
+     * The turn count of the game is already the one of the new turn, the keyframe is the state after the turn before.
+     */
+    private void startTurn(GameEvent event) throws IOException {
+        writePendingTurn();
+        int previousTurn = event.turn() - 1;
+        if (previousTurn - keyframeTurns[keyframeCount - 1] >= keyframeInterval) {
+            game.snapshot(snapshot);
+            snapshot[2] = previousTurn;
+            writeKeyframe();
+        }
+        turnPending = true;
+        turn = event.turn();
+        startX = event.x();
+        startY = event.y();
+        startVelocityX = event.velocityX();
+        startVelocityY = event.velocityY();
+        endX = startX;
+        endY = startY;
+        velocityX = startVelocityX;
+        velocityY = startVelocityY;
+        flags = 0;
+        remainingLaps = event.remainingLaps();
+    }
+
+    private void writePendingTurn() throws IOException {
+        if (!turnPending) return;
+        turnPending = false;
+        int skipped = turn - lastTurn - 1;
+        Direction direction = directionOf(velocityX - startVelocityX, velocityY - startVelocityY);
+        writeByte(direction.ordinal() << 4 | flags | (skipped > 0 ? FLAG_SKIPPED : 0));
+        if (skipped > 0) {
+            writeVarInt(skipped);
+        }
+        writeSignedVarInt(endX - startX);
+        writeSignedVarInt(endY - startY);
+        if ((flags & FLAG_CRASHED) != 0) {
+            writeSignedVarInt(crashX - startX);
+            writeSignedVarInt(crashY - startY);
+        }
+        if ((flags & FLAG_LAP) != 0) {
+            writeVarInt(remainingLaps);
+        }
+        if ((flags & FLAG_WINNER) != 0) {
+            writeVarInt(winner);
+        }
+        lastTurn = turn;
+    }
+
+    private void writeKeyframe() throws IOException {
+        if (keyframeCount == keyframeTurns.length) {
+            keyframeTurns = Arrays.copyOf(keyframeTurns, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+        }
+        keyframeTurns[keyframeCount] = snapshot[2];
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeCount++;
+        lastTurn = snapshot[2];
+        writeByte(KEYFRAME);
+        for (int value: snapshot) {
+            writeSignedVarInt(value);
+        }
+    }
+
+    /*
+     * Return the direction of the given acceleration, which is the difference of the velocities at the end and
+     * at the start of the turn.
+     */
+    private static Direction directionOf(int x, int y) {
+        for (Direction direction: Direction.values()) {
+            if (direction.vector.getX() == x && direction.vector.getY() == y) {
+                return direction;
+            }
+        }
+        throw new IllegalStateException("Invalid acceleration: (" + x + ", " + y + ")");
+    }
+
+    private void writeByte(int value) throws IOException {
+        out.write(value);
+        offset++;
+    }
+
+    private void writeInt(int value) throws IOException {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeSignedVarInt(int value) throws IOException {
+        writeVarInt(value << 1 ^ value >> 31);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+}
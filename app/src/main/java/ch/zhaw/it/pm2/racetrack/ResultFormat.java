@@ -0,0 +1,118 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Format of the results of a non-interactive run of races (see {@link RaceOptions}).
+ */
+public enum ResultFormat {
+    /**
+     * One line per race and a summary of the wins, for humans.
+     */
+    TEXT,
+    /**
+     * A header line and one line per race with the columns race, outcome, winner, turns, crashes and reason.
+     * A race without a winner has the winner {@link RaceResult#NO_WINNER_ID}.
+     */
+    CSV,
+    /**
+     * An object with the track name and the array of the races. A race without a winner has the winner null.
+     */
+    JSON;
+
+    /**
+     * Writes the results of the races in this format.
+     *
+     * @param trackName the name of the track the races were run on
+     * @param results   the results of the races, ordered by race number
+     * @param out       the stream to write to
+     */
+    public void write(String trackName, List<RaceResult> results, PrintStream out) {
+        switch (this) {
+            case TEXT -> writeText(trackName, results, out);
+            case CSV -> writeCsv(results, out);
+            case JSON -> writeJson(trackName, results, out);
+        }
+        out.flush();
+    }
+
+    private static void writeText(String trackName, List<RaceResult> results, PrintStream out) {
+        Map<Character, Integer> wins = new TreeMap<>();
+        int racesWithoutWinner = 0;
+        for (RaceResult result: results) {
+            out.print("Race " + result.raceNumber() + ": ");
+            if (result.hasWinner()) {
+                out.print("car <" + result.winnerId() + "> won");
+                wins.merge(result.winnerId(), 1, Integer::sum);
+            } else {
+                out.print("no winner");
+                racesWithoutWinner++;
+            }
+            out.println(" after " + result.turns() + " turns, " + result.crashes() + " crashes (" + result.reason() + ")");
+        }
+        out.print(results.size() + " races on " + trackName + ":");
+        for (Map.Entry<Character, Integer> entry: wins.entrySet()) {
+            out.print(" car <" + entry.getKey() + "> won " + entry.getValue() + ",");
+        }
+        out.println(" " + racesWithoutWinner + " without winner");
+    }
+
+    private static void writeCsv(List<RaceResult> results, PrintStream out) {
+        out.println("race,outcome,winner,turns,crashes,reason");
+        for (RaceResult result: results) {
+            out.println(result.raceNumber() + "," + result.outcome() + ","
+                + csvValue(String.valueOf(result.winnerId())) + "," + result.turns() + "," + result.crashes()
+                + "," + csvValue(result.reason()));
+        }
+    }
+
+    private static void writeJson(String trackName, List<RaceResult> results, PrintStream out) {
+        out.println("{\"track\": " + jsonString(trackName) + ", \"races\": [");
+        for (int i = 0; i < results.size(); i++) {
+            RaceResult result = results.get(i);
+            out.print("  {\"race\": " + result.raceNumber()
+                + ", \"outcome\": \"" + result.outcome() + "\""
+                + ", \"winner\": " + (result.hasWinner() ? jsonString(String.valueOf(result.winnerId())) : "null")
+                + ", \"turns\": " + result.turns()
+                + ", \"crashes\": " + result.crashes()
+                + ", \"reason\": " + jsonString(result.reason()) + "}");
+            out.println(i < results.size() - 1 ? "," : "");
+        }
+        out.println("]}");
+    }
+
+    /*
+     * Quote the value, if it contains a separator, a quote or a line break.
+     */
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u%04x".formatted((int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,198 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Headless simulator, running many independent races in parallel.
+ *
+ * <p>Every race uses its own {@link Track} and {@link Game} instance, so the races do not share any mutable state.
+ * The races of a batch share a single immutable {@link TrackLayout}. Layouts of track files are taken from the
+ * {@link TrackCache#getDefault() default track cache}, so repeated races on the same file do not parse it again.
+ * The games are played with the {@link NoOpRenderer} and never touch the terminal. The move strategies are created
+ * by a {@link StrategyFactory} for each car of each race, and must not require user interaction.</p>
+ *
+ * <p>The races are executed on a {@link ForkJoinPool}, which by default uses all available processors.
+ * As a race may never end (e.g. if all cars do not move), each race is stopped when it makes no progress within
+ * the {@link Game#setStallLimit(int) stall limit}, or after the turn limit. The {@link RaceResult#outcome() outcome}
+ * of the result tells why the race ended.</p>
+ */
+public class Simulator implements AutoCloseable {
+
+    /**
+     * Default maximum number of turns of a single race.
+     */
+    public static final int DEFAULT_TURN_LIMIT = 10_000;
+
+    private final ForkJoinPool pool;
+    private final int turnLimit;
+    private final int stallLimit;
+
+    /**
+     * Creates a simulator using all available processors and the {@link #DEFAULT_TURN_LIMIT}.
+     */
+    public Simulator() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TURN_LIMIT);
+    }
+
+    /**
+     * Creates a simulator using the {@link Game#DEFAULT_STALL_LIMIT}.
+     *
+     * @param parallelism number of races to run concurrently
+     * @param turnLimit   maximum number of turns of a single race
+     * @throws IllegalArgumentException if parallelism or turnLimit are not positive
+     */
+    public Simulator(int parallelism, int turnLimit) {
+        this(parallelism, turnLimit, Game.DEFAULT_STALL_LIMIT);
+    }
+
+    /**
+     * Creates a simulator.
+     *
+     * @param parallelism number of races to run concurrently
+     * @param turnLimit   maximum number of turns of a single race
+     * @param stallLimit  number of turns without progress, after which a race is stalled
+     * @throws IllegalArgumentException if parallelism, turnLimit or stallLimit are not positive
+     */
+    public Simulator(int parallelism, int turnLimit, int stallLimit) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (turnLimit < 1) {
+            throw new IllegalArgumentException("Turn limit must be positive: " + turnLimit);
+        }
+        if (stallLimit < 1) {
+            throw new IllegalArgumentException("Stall limit must be positive: " + stallLimit);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.turnLimit = turnLimit;
+        this.stallLimit = stallLimit;
+    }
+
+    /**
+     * Runs a single race on the calling thread.
+     *
+     * @param raceNumber      the number of the race, used in the result
+     * @param trackFile       the track file to race on
+     * @param strategyFactory the factory creating the move strategy of each car
+     * @return the result of the race
+     * @throws IOException                if the track file can not be read
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     */
+    public RaceResult runRace(int raceNumber, File trackFile, StrategyFactory strategyFactory)
+        throws IOException, InvalidFileFormatException {
+        return runRace(raceNumber, TrackCache.getDefault().get(trackFile), strategyFactory);
+    }
+
+    /**
+     * Runs a single race on the given layout on the calling thread.
+     *
+     * @param raceNumber      the number of the race, used in the result
+     * @param layout          the layout of the track to race on
+     * @param strategyFactory the factory creating the move strategy of each car
+     * @return the result of the race
+     */
+    public RaceResult runRace(int raceNumber, TrackLayout layout, StrategyFactory strategyFactory) {
+        Track track = new Track(layout);
+        Game game = new Game(track, NoOpRenderer.INSTANCE);
+        game.setStallLimit(stallLimit);
+        for (int i = 0; i < track.getCarCount(); i++) {
+            game.setCarMoveStrategy(i, strategyFactory.create(track.getCar(i), track));
+        }
+
+        int turns = game.playUntilFinished(turnLimit);
+
+        int crashes = 0;
+        for (int i = 0; i < track.getCarCount(); i++) {
+            if (track.getCar(i).isCrashed()) {
+                crashes++;
+            }
+        }
+        int winner = game.getWinner();
+        char winnerId = winner == Game.NO_WINNER ? RaceResult.NO_WINNER_ID : game.getCarId(winner);
+        return new RaceResult(raceNumber, winner, winnerId, turns, crashes, game.getOutcome(), game.getOutcomeReason());
+    }
+
+    /**
+     * Runs the given number of independent races on the same track in parallel.
+     *
+     * @param trackFile       the track file to race on
+     * @param strategyFactory the factory creating the move strategy of each car
+     * @param repetitions     the number of races to run
+     * @return the results of all races, ordered by race number
+     * @throws IOException                if the track file can not be read
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     */
+    public List<RaceResult> runBatch(File trackFile, StrategyFactory strategyFactory, int repetitions)
+        throws IOException, InvalidFileFormatException {
+        return runBatch(TrackCache.getDefault().get(trackFile), strategyFactory, repetitions);
+    }
+
+    /**
+     * Runs the given number of independent races on the given layout in parallel.
+     *
+     * @param layout          the layout of the track to race on, shared by all races
+     * @param strategyFactory the factory creating the move strategy of each car
+     * @param repetitions     the number of races to run
+     * @return the results of all races, ordered by race number
+     */
+    public List<RaceResult> runBatch(TrackLayout layout, StrategyFactory strategyFactory, int repetitions) {
+        List<Future<RaceResult>> futures = new ArrayList<>(repetitions);
+        for (int i = 0; i < repetitions; i++) {
+            final int raceNumber = i;
+            futures.add(pool.submit(() -> runRace(raceNumber, layout, strategyFactory)));
+        }
+
+        List<RaceResult> results = new ArrayList<>(repetitions);
+        for (Future<RaceResult> future: futures) {
+            results.add(awaitResult(future));
+        }
+        return results;
+    }
+
+    /*
+     * Wait for the result of a race and rethrow the exception of a failed race.
+     */
+    private RaceResult awaitResult(Future<RaceResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException("Race failed", cause);
+        }
+    }
+
+    /**
+     * Shuts down the worker threads of the simulator.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Factory creating the {@link MoveStrategy} for a car of a simulated race.
+     */
+    @FunctionalInterface
+    public interface StrategyFactory {
+        /**
+         * Create the move strategy for the given car.
+         *
+         * @param car   the car to create the strategy for
+         * @param track the track the car is racing on
+         * @return the move strategy for the car
+         */
+        MoveStrategy create(Car car, Track track);
+    }
+}
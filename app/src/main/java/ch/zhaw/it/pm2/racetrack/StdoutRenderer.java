@@ -0,0 +1,88 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renderer writing plain text to the standard output or another stream, e.g. for logs of unattended games.
+ *
+ * <p>The output is buffered and only written when the buffer is full, when the game ends ({@link #finish()})
+ * or on {@link #flush()}, so printing the track in every turn does not block on the terminal.
+ * It does not read any input.</p>
+ */
+public class StdoutRenderer implements Renderer {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final PrintWriter out;
+
+    /**
+     * Creates a renderer writing to the standard output.
+     */
+    public StdoutRenderer() {
+        this(System.out);
+    }
+
+    /**
+     * Creates a renderer writing UTF-8 text to the given stream.
+     *
+     * @param out the stream to write to
+     */
+    public StdoutRenderer(OutputStream out) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void printMessage(String message) {
+        out.println(message);
+    }
+
+    @Override
+    public void printStatus(Track track, char carId) {
+        out.println("Game status:");
+        out.println(track);
+        out.println("Current turn: " + carId);
+    }
+
+    @Override
+    public void printCrash(char carId, PositionVector position, String reason) {
+        out.println("Car <" + carId + "> crashed at position " + position + ": " + reason);
+    }
+
+    @Override
+    public void printWinner(Track track, char carId) {
+        out.println("Final game status:");
+        out.println(track);
+        out.println("Car <" + carId + "> wins the game!");
+    }
+
+    @Override
+    public void printRaceEnded(Track track, String reason) {
+        out.println("Final game status:");
+        out.println(track);
+        out.println("The race ended without a winner: " + reason);
+    }
+
+    /**
+     * Writes out the buffered output.
+     */
+    @Override
+    public void finish() {
+        flush();
+    }
+
+    /**
+     * Writes out the buffered output.
+     */
+    public void flush() {
+        out.flush();
+    }
+}
@@ -0,0 +1,43 @@
+package ch.zhaw.it.pm2.racetrack;
+
+/**
+ * Renderer printing to the text terminal of the {@link UserInterface}, for interactive games.
+ * The terminal is only set up when the first output is printed. At the end of the game, the user is asked to quit.
+ */
+public class TextIoRenderer implements Renderer {
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void printMessage(String message) {
+        UserInterface.printSomething(message);
+    }
+
+    @Override
+    public void printStatus(Track track, char carId) {
+        UserInterface.printStatus(track, carId);
+    }
+
+    @Override
+    public void printCrash(char carId, PositionVector position, String reason) {
+        UserInterface.printCrashInfo(carId, position, reason);
+    }
+
+    @Override
+    public void printWinner(Track track, char carId) {
+        UserInterface.printFinalGame(track, carId);
+    }
+
+    @Override
+    public void printRaceEnded(Track track, String reason) {
+        UserInterface.printRaceEnded(track, reason);
+    }
+
+    @Override
+    public void finish() {
+        UserInterface.promptQuit();
+    }
+}
@@ -2,14 +2,11 @@ package ch.zhaw.it.pm2.racetrack;
 
 import ch.zhaw.it.pm2.racetrack.given.TrackSpecification;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * This class represents the racetrack board.
@@ -19,7 +16,9 @@ import java.util.Optional;
  * <p>Positions on the track grid are specified using {@link PositionVector} objects. These are vectors containing an
  * x/y coordinate pair, pointing from the zero-point (top-left) to the addressed space in the grid.</p>
  *
- * <p>Each position in the grid represents a space which can hold an enum object of type {@link SpaceType}.<br>
+ * <p>Each position in the grid represents a space which can hold an enum object of type {@link SpaceType}.
+ * The grid is stored row by row in a byte array holding the ordinal of the space type, which is read using
+ * {@link #spaceTypeAt(int, int)}.<br>
  * Possible Space types are:
  * <ul>
  *  <li>WALL : road boundary or off track space</li>
@@ -28,6 +27,8 @@ import java.util.Optional;
  *      in the indicated direction to winn the race.</li>
  * </ul>
  * <p>Beside the board the track contains the list of cars, with their current state (position, velocity,...)</p>
+ * <p>The cars are indexed in the order of their appearance in the track file (row by row, from left to right).
+ * This order is stable across runs, and a car can be accessed by its index in constant time.</p>
  *
  * <p>At initialization the track grid data is read from the given track file. The track data must be a
  * rectangular block of text. Empty lines at the start are ignored. Processing stops at the first empty line
@@ -42,7 +43,8 @@ import java.util.Optional;
  *   <li>FINISH_DOWN: 'v'</li>
  *   <li>Any other character indicates the starting position of a car.<br>
  *       The character acts as the id for the car and must be unique.<br>
- *       There are 1 to {@link TrackSpecification#MAX_CARS} allowed. </li>
+ *       There are 1 to {@link TrackSpecification#MAX_CARS} allowed, unless a higher limit
+ *       is given with {@link #Track(File, int)}. </li>
  * </ul>
  *
  * <p>All lines must have the same length, used to initialize the grid width.<br/>
@@ -53,16 +55,53 @@ import java.util.Optional;
  *   <li>the file contains no track lines (grid height is 0)</li>
  *   <li>not all track lines have the same length</li>
  *   <li>the file contains no cars</li>
- *   <li>the file contains more than {@link TrackSpecification#MAX_CARS} cars</li>
+ *   <li>the file contains more than the allowed number of cars</li>
  * </ul>
  *
+ * <p>Instead of a text file, a compiled binary track file can be given (see {@link CompiledTrackFile}). For a text
+ * file, an up-to-date compiled file next to it is loaded instead of parsing the text.</p>
+ *
+ * <p>The static part of the track (grid, start and finish positions, and the indexes derived from them) is kept in an
+ * immutable {@link TrackLayout}, which can be shared by many tracks: {@link #Track(TrackLayout)} only creates the cars
+ * at their start positions. So parallel races on the same track file read the file only once.
+ * The grid queries of this class delegate to the layout.</p>
+ *
+ * <p>The track keeps an occupancy index of the cars per cell, which is updated whenever a car changes its position.
+ * So finding the cars on a cell (for collision checks and rendering) does not depend on the number of cars.</p>
+ *
+ * <p>A move shorter than the {@link #getClearance(int, int) clearance} of its starting position can neither crash into
+ * a wall nor cross the finish line. For move strategies, the track provides the distance of every position to the
+ * finish line (see {@link #getDistanceToFinish(int, int)}).</p>
+ *
  * <p>The Tracks {@link #toString()} method returns a String representing the current state of the race
  * (including car positions and status)</p>
  */
 public class Track implements TrackSpecification {
 
-    private SpaceType[][] grid;
+    /**
+     * Distance of positions from which the finish line can not be reached.
+     */
+    public static final int UNREACHABLE = TrackLayout.UNREACHABLE;
+
+    /**
+     * Maximum clearance stored for a position. Larger clearances are capped to this value.
+     */
+    public static final int MAX_CLEARANCE = TrackLayout.MAX_CLEARANCE;
+
+    private final TrackLayout layout;
     private final Map<Character, Car> cars;
+    private final Car[] carsByIndex;
+
+    /**
+     * Index+1 of the first car on each cell (row by row), 0 if there is no car on the cell.
+     */
+    private int[] cellOccupants;
+
+    /**
+     * Index+1 of the next car on the same cell for each car, 0 if there is no further car.
+     * The cars on a cell are linked in ascending index order.
+     */
+    private int[] nextOccupants;
 
     /**
      * Initialize a Track from the given track file.<br/>
@@ -75,90 +114,167 @@ public class Track implements TrackSpecification {
      */
 
     public Track(File trackFile) throws IOException, InvalidFileFormatException {
-        cars = new HashMap<>();
-        Map<Integer, String> trackLines = readTrackFile(trackFile);
-        processTrackLines(trackLines);
+        this(trackFile, MAX_CARS);
     }
 
-    /*
-     * Read the track file and return the track lines as a map of row number to line content.
-     * @param trackFile the track file to read
-     * @return the track lines as a map of row number to line content
-     * @throws IOException if the track file can not be opened or reading fails
+    /**
+     * Initialize a Track with more than {@link #MAX_CARS} cars from the given track file.<br/>
+     * See class description for structure and valid tracks.
+     *
+     * @param trackFile Reference to a file containing the track data
+     * @param maxCars   the maximum number of cars allowed on the track
+     * @throws IOException                if the track file can not be opened or reading fails
      * @throws InvalidFileFormatException if the track file contains invalid data
-     * (no track lines, inconsistent length)
+     *                                    (no track lines, inconsistent length, no cars, too many cars)
      */
-    private Map<Integer, String> readTrackFile(File trackFile) throws IOException, InvalidFileFormatException {
-        Map<Integer, String> trackLines = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(trackFile, StandardCharsets.UTF_8))) {
-            String line;
-            int width = -1;
-            int height = 0;
-
-            while ((line = reader.readLine()) != null) {
-                // Skip empty lines at the beginning
-                if (height == 0 && line.trim().isEmpty()) continue;
-
-                if (width == -1) {
-                    width = line.length();
-                } else if (line.length() != width) {
-                    throw new InvalidFileFormatException("Inconsistent track line length");
-                }
+    public Track(File trackFile, int maxCars) throws IOException, InvalidFileFormatException {
+        this(new TrackLayout(trackFile, maxCars));
+    }
 
-                trackLines.put(height, line);
-                height++;
-            }
+    /**
+     * Initialize a Track for a new race on the given layout, with all cars at their start positions.
+     * The layout is shared, not copied.
+     *
+     * @param layout the layout of the track
+     */
+    public Track(TrackLayout layout) {
+        this.layout = layout;
+        cars = new LinkedHashMap<>();
+        carsByIndex = new Car[layout.getCarCount()];
+        for (int i = 0; i < carsByIndex.length; i++) {
+            carsByIndex[i] = new Car(layout.getCarId(i), layout.getStartPosition(i));
+            cars.put(carsByIndex[i].getId(), carsByIndex[i]);
+        }
+        initOccupancy();
+    }
 
-            if (height == 0) {
-                throw new InvalidFileFormatException("The track file is empty or not properly formatted.");
-            }
+    /**
+     * Returns the immutable layout of the track.
+     *
+     * @return the layout of the track
+     */
+    public TrackLayout getLayout() {
+        return layout;
+    }
 
-            grid = new SpaceType[height][width];
-        } catch (IOException e) {
-            throw new IOException("Failed to read the track file: " + e.getMessage(), e);
+    /**
+     * Returns the statistics of loading the track file, either parsed or read from the compiled file.
+     *
+     * @return the statistics of loading the track file
+     */
+    public TrackParser.ParseStatistics getParseStatistics() {
+        return layout.getParseStatistics();
+    }
+
+    /*
+     * Initialize the occupancy index with the start positions of the cars.
+     */
+    private void initOccupancy() {
+        cellOccupants = new int[layout.getWidth() * layout.getHeight()];
+        nextOccupants = new int[carsByIndex.length];
+        for (int i = 0; i < carsByIndex.length; i++) {
+            carsByIndex[i].placeOnTrack(this, i);
+            addOccupant(i, carsByIndex[i].getPosition());
         }
-        return trackLines;
+    }
+
+    /**
+     * Updates the occupancy index after a car changed its position.
+     *
+     * @param carIndex    the index of the car which moved
+     * @param oldPosition the previous position of the car
+     * @param newPosition the new position of the car
+     */
+    void carMoved(int carIndex, PositionVector oldPosition, PositionVector newPosition) {
+        removeOccupant(carIndex, oldPosition);
+        addOccupant(carIndex, newPosition);
     }
 
     /*
-     * Process the track lines and initialize the grid and cars.
-     * @param trackLines the track lines to process
-     * @throws InvalidFileFormatException if the track file contains invalid data
-     * (no cars, too many cars, duplicate car id)
+     * Link the car into the list of the cars on the given cell, keeping the list ordered by car index.
+     * Positions outside the grid are not indexed.
+     */
+    private void addOccupant(int carIndex, PositionVector position) {
+        if (layout.isOutOfBounds(position.getX(), position.getY())) return;
+        int cell = layout.cellIndex(position.getX(), position.getY());
+        int previous = 0;
+        int current = cellOccupants[cell];
+        while (current != 0 && current - 1 < carIndex) {
+            previous = current;
+            current = nextOccupants[current - 1];
+        }
+        nextOccupants[carIndex] = current;
+        if (previous == 0) {
+            cellOccupants[cell] = carIndex + 1;
+        } else {
+            nextOccupants[previous - 1] = carIndex + 1;
+        }
+    }
+
+    /*
+     * Unlink the car from the list of the cars on the given cell.
+     */
+    private void removeOccupant(int carIndex, PositionVector position) {
+        if (layout.isOutOfBounds(position.getX(), position.getY())) return;
+        int cell = layout.cellIndex(position.getX(), position.getY());
+        int previous = 0;
+        int current = cellOccupants[cell];
+        while (current != 0 && current - 1 != carIndex) {
+            previous = current;
+            current = nextOccupants[current - 1];
+        }
+        if (current == 0) return;
+        if (previous == 0) {
+            cellOccupants[cell] = nextOccupants[carIndex];
+        } else {
+            nextOccupants[previous - 1] = nextOccupants[carIndex];
+        }
+        nextOccupants[carIndex] = 0;
+    }
+
+    /**
+     * Return the index of the car on the given cell.
+     * If there are several cars on the cell, the one with the lowest index is returned.
      *
+     * @param x the column of the cell
+     * @param y the row of the cell
+     * @return the index of the car on the cell, or -1 if there is no car on the cell
      */
-    private void processTrackLines(Map<Integer, String> trackLines) throws InvalidFileFormatException {
-        for (Map.Entry<Integer, String> entry: trackLines.entrySet()) {
-            int row = entry.getKey();
-            String trackLine = entry.getValue();
-            for (int col = 0; col < grid[0].length; col++) {
-                char spaceChar = trackLine.charAt(col);
-
-                Optional<SpaceType> optionalSpaceType = SpaceType.spaceTypeForChar(spaceChar);
-                if (optionalSpaceType.isPresent()) {
-                    grid[row][col] = optionalSpaceType.get();
-                } else {
-                    // No valid space type, so this could be a car identifier
-                    // Ensure it's a valid car character and not already used
-                    if (!cars.containsKey(spaceChar)) {
-                        if (cars.size() >= MAX_CARS) {
-                            throw new InvalidFileFormatException("Amount of cars exceeds the maximum of " + MAX_CARS);
-                        }
-
-                        cars.put(spaceChar, new Car(spaceChar, new PositionVector(col, row)));
-                        // Assuming cars are on TRACK spaces
-                        grid[row][col] = SpaceType.TRACK;
-                    } else {
-                        // Handle the error of duplicate car identifiers
-                        throw new InvalidFileFormatException("Duplicate car id: " + spaceChar);
-                    }
-                }
+    public int getCarIndexAt(int x, int y) {
+        if (layout.isOutOfBounds(x, y)) {
+            for (int i = 0; i < carsByIndex.length; i++) {
+                PositionVector position = carsByIndex[i].getPosition();
+                if (position.getX() == x && position.getY() == y) return i;
             }
+            return -1;
         }
+        return cellOccupants[layout.cellIndex(x, y)] - 1;
+    }
 
-        if (cars.isEmpty()) {
-            throw new InvalidFileFormatException("The track file contains no cars.");
+    /**
+     * Checks whether an active (not crashed) car other than the given one is on the given cell.
+     *
+     * @param x        the column of the cell
+     * @param y        the row of the cell
+     * @param carIndex the index of the car to ignore
+     * @return true if another active car is on the cell, false otherwise
+     */
+    public boolean isOccupiedByOtherActiveCar(int x, int y, int carIndex) {
+        if (layout.isOutOfBounds(x, y)) {
+            for (int i = 0; i < carsByIndex.length; i++) {
+                PositionVector position = carsByIndex[i].getPosition();
+                if (i != carIndex && !carsByIndex[i].isCrashed() && position.getX() == x && position.getY() == y) {
+                    return true;
+                }
+            }
+            return false;
         }
+        for (int occupant = cellOccupants[layout.cellIndex(x, y)]; occupant != 0; occupant = nextOccupants[occupant - 1]) {
+            if (occupant - 1 != carIndex && !carsByIndex[occupant - 1].isCrashed()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -167,7 +283,7 @@ public class Track implements TrackSpecification {
      * @return Height of the track grid
      */
     public int getHeight() {
-        return grid.length;
+        return layout.getHeight();
     }
 
     /**
@@ -176,7 +292,7 @@ public class Track implements TrackSpecification {
      * @return the width of the track grid
      */
     public int getWidth() {
-        return grid[0].length;
+        return layout.getWidth();
     }
 
 
@@ -187,7 +303,7 @@ public class Track implements TrackSpecification {
      */
     @Override
     public int getCarCount() {
-        return cars.size();
+        return carsByIndex.length;
     }
 
     /**
@@ -198,7 +314,17 @@ public class Track implements TrackSpecification {
      */
     @Override
     public Car getCar(int carIndex) {
-        return (Car) cars.values().toArray()[carIndex];
+        return carsByIndex[carIndex];
+    }
+
+    /**
+     * Return the index of the car with the given id.
+     *
+     * @param carId the id of the car
+     * @return the zero-based index of the car, or -1 if there is no car with the given id
+     */
+    public int getCarIndex(char carId) {
+        return layout.getCarIndex(carId);
     }
 
 
@@ -211,10 +337,71 @@ public class Track implements TrackSpecification {
      */
     @Override
     public SpaceType getSpaceTypeAtPosition(PositionVector position) {
-        if (position.getX() < 0 || position.getX() >= getWidth() || position.getY() < 0 || position.getY() >= getHeight()) {
-            return SpaceType.WALL;
+        return spaceTypeAt(position.getX(), position.getY());
+    }
+
+    /**
+     * Return the type of space at the given coordinates.
+     * If the location is outside the track bounds, it is considered a WALL.
+     *
+     * @param x the column of the position to examine
+     * @param y the row of the position to examine
+     * @return the type of track position at the given location
+     */
+    public SpaceType spaceTypeAt(int x, int y) {
+        return layout.spaceTypeAt(x, y);
+    }
+
+    /**
+     * Return the number of steps from the given position to the finish line.<br/>
+     * A step goes to one of the eight neighbour positions. The steps only cross track positions, and the last step
+     * enters a finish position from the side it has to be crossed from (e.g. from the left for
+     * {@link SpaceType#FINISH_RIGHT}). As a car crosses at most max(|vx|, |vy|) steps in a move, this is a lower bound
+     * for the remaining moves of a car.<br/>
+     * The distances of all positions are calculated on the first call, so every further call takes constant time.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return the number of steps to the finish line, 0 for finish positions, or {@link #UNREACHABLE}
+     * if the finish line can not be reached or the position is a wall or outside the track
+     */
+    public int getDistanceToFinish(int x, int y) {
+        return layout.getDistanceToFinish(x, y);
+    }
+
+    /**
+     * Return the clearance of the given position: the Chebyshev distance (max(|dx|, |dy|)) to the nearest wall
+     * or finish position. Positions outside the track count as walls.<br/>
+     * A move starting at the position, whose velocity is shorter than the clearance in both axes, only crosses
+     * track positions.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return the clearance capped at {@link #MAX_CLEARANCE}, 0 for walls, finish positions and positions outside
+     */
+    public int getClearance(int x, int y) {
+        return layout.getClearance(x, y);
+    }
+
+    /**
+     * Checks whether an active (not crashed) car other than the given one is within the given Chebyshev distance
+     * of a position.
+     *
+     * @param x        the column of the position
+     * @param y        the row of the position
+     * @param distance the maximum distance in both axes
+     * @param carIndex the index of the car to ignore
+     * @return true if another active car is within the distance, false otherwise
+     */
+    public boolean hasOtherActiveCarWithin(int x, int y, int distance, int carIndex) {
+        for (int i = 0; i < carsByIndex.length; i++) {
+            PositionVector position = carsByIndex[i].getPosition();
+            if (i != carIndex && !carsByIndex[i].isCrashed()
+                && Math.abs(position.getX() - x) <= distance && Math.abs(position.getY() - y) <= distance) {
+                return true;
+            }
         }
-        return grid[position.getY()][position.getX()];
+        return false;
     }
 
     /**
@@ -231,16 +418,16 @@ public class Track implements TrackSpecification {
      */
     @Override
     public char getCharRepresentationAtPosition(int row, int col) {
-        for (Car car: cars.values()) {
-            if (car.getPosition().getX() == col && car.getPosition().getY() == row) {
-                if (car.isCrashed()) {
-                    return CRASH_INDICATOR;
-                } else {
-                    return car.getId();
-                }
+        int carIndex = getCarIndexAt(col, row);
+        if (carIndex >= 0) {
+            Car car = carsByIndex[carIndex];
+            if (car.isCrashed()) {
+                return CRASH_INDICATOR;
+            } else {
+                return car.getId();
             }
         }
-        return grid[row][col].getSpaceChar();
+        return spaceTypeAt(col, row).getSpaceChar();
     }
 
     /**
@@ -260,16 +447,23 @@ public class Track implements TrackSpecification {
         return sb.toString();
     }
 
+    /**
+     * Return the grid as a two-dimensional array, indexed by row and column.<br/>
+     * The array is created on the first call and then reused, so it must not be modified.
+     * Prefer {@link #spaceTypeAt(int, int)}, which does not need the additional memory.
+     *
+     * @return the space types of the grid, indexed by row and column
+     */
     public SpaceType[][] getTrack() {
-        return this.grid;
+        return layout.getGrid();
     }
 
     /**
-     * Return the map of cars on the track.
+     * Return the map of cars on the track, ordered by car index.
      *
-     * @return the map of cars on the track
+     * @return the unmodifiable map of cars on the track
      */
     public Map<Character, Car> getCars() {
-        return cars;
+        return Collections.unmodifiableMap(cars);
     }
 }
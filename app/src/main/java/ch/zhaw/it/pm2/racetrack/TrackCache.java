@@ -0,0 +1,229 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.given.TrackSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link TrackLayout track layouts}, so repeated races on the same track file neither read nor
+ * parse the file again.
+ *
+ * <p>The entries are keyed by the canonical path of the track file. An entry is valid as long as the last
+ * modification time and the size of the file, and the last modification time of its compiled file (see
+ * {@link CompiledTrackFile#compiledFileFor(File)}) did not change, which only needs the file attributes.
+ * If they changed, the layout of a text track file is read from its compiled file, if it is up to date, without
+ * reading the text file. Otherwise the SHA-256 hash of the content is compared with the hash of the cached layout:
+ * if the content is the same (e.g. the file was only touched or copied over), the cached layout is still used.
+ * Otherwise the layout is built from the content which was hashed.</p>
+ *
+ * <p>The size of a layout is estimated from its number of cells. If the total size exceeds the maximum size,
+ * the least recently used layouts are evicted. The numbers of hits, misses and evictions are counted and can be
+ * read with {@link #getStatistics()}.</p>
+ *
+ * <p>All methods are thread-safe. A track file is loaded outside the lock, so threads loading different tracks do
+ * not block each other. If several threads load the same track at the same time, each parses it and the last one
+ * is kept.</p>
+ */
+public final class TrackCache {
+
+    /**
+     * Maximum total size of the layouts of the {@link #getDefault() default cache} in bytes.
+     */
+    public static final long DEFAULT_MAX_SIZE = 64L << 20;
+
+    /**
+     * Estimated number of bytes per cell of a layout: the cell, its clearance and its distance to the finish line.
+     */
+    private static final int BYTES_PER_CELL = 1 + 1 + Integer.BYTES;
+
+    private static final TrackCache DEFAULT = new TrackCache(DEFAULT_MAX_SIZE);
+
+    private final long maxSize;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxSize the maximum total size of the cached layouts in bytes
+     * @throws IllegalArgumentException if maxSize is not positive
+     */
+    public TrackCache(long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the shared cache with a maximum size of {@link #DEFAULT_MAX_SIZE}.
+     *
+     * @return the default cache
+     */
+    public static TrackCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the layout of the given track file, loading it if it is not cached or the file has changed.
+     *
+     * @param trackFile the track file
+     * @return the layout of the track file
+     * @throws IOException                if the track file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     */
+    public TrackLayout get(File trackFile) throws IOException, InvalidFileFormatException {
+        String key = trackFile.getCanonicalPath();
+        long lastModified = trackFile.lastModified();
+        long length = trackFile.length();
+        boolean isCompiledFile = CompiledTrackFile.isCompiledFile(trackFile);
+        long compiledLastModified = isCompiledFile ? 0 : CompiledTrackFile.compiledFileFor(trackFile).lastModified();
+
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length
+                && cached.compiledLastModified == compiledLastModified) {
+                hits++;
+                return cached.layout;
+            }
+        }
+
+        TrackParser.ParsedTrack compiledTrack = isCompiledFile
+            ? null : CompiledTrackFile.readIfUpToDate(trackFile, TrackSpecification.MAX_CARS);
+        if (compiledTrack != null) {
+            // The content of the text file is not read, so a later change of it can not be compared by hash
+            return putLoaded(key, new TrackLayout(compiledTrack), lastModified, length, compiledLastModified, null);
+        }
+
+        ByteBuffer content = TrackParser.read(trackFile);
+        byte[] contentHash = hash(content);
+        if (cached != null && Arrays.equals(cached.contentHash, contentHash)) {
+            synchronized (this) {
+                hits++;
+                put(key, new Entry(cached.layout, lastModified, length, compiledLastModified, contentHash));
+            }
+            return cached.layout;
+        }
+
+        TrackLayout layout = new TrackLayout(
+            CompiledTrackFile.readContent(trackFile, content, TrackSpecification.MAX_CARS));
+        return putLoaded(key, layout, lastModified, length, compiledLastModified, contentHash);
+    }
+
+    /**
+     * Removes the layout of the given track file from the cache.
+     *
+     * @param trackFile the track file
+     * @return true if a layout of the file was cached
+     * @throws IOException if the canonical path of the file can not be determined
+     */
+    public boolean invalidate(File trackFile) throws IOException {
+        String key = trackFile.getCanonicalPath();
+        synchronized (this) {
+            Entry removed = entries.remove(key);
+            if (removed == null) {
+                return false;
+            }
+            size -= removed.size();
+            return true;
+        }
+    }
+
+    /**
+     * Removes all layouts from the cache. The statistics are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the current statistics of the cache.
+     *
+     * @return the statistics of the cache
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, misses, evictions, entries.size(), size, maxSize);
+    }
+
+    /*
+     * Count a miss and add the entry of the loaded layout.
+     */
+    private synchronized TrackLayout putLoaded(String key, TrackLayout layout, long lastModified, long length,
+                                               long compiledLastModified, byte[] contentHash) {
+        misses++;
+        put(key, new Entry(layout, lastModified, length, compiledLastModified, contentHash));
+        return layout;
+    }
+
+    /*
+     * Add or replace the entry and evict the least recently used entries until the cache fits its maximum size.
+     * The new entry itself is never evicted, even if it is larger than the maximum size.
+     * Must be called holding the lock.
+     */
+    private void put(String key, Entry entry) {
+        Entry replaced = entries.put(key, entry);
+        if (replaced != null) {
+            size -= replaced.size();
+        }
+        size += entry.size();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && entries.size() > 1) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            size -= eldest.getValue().size();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /*
+     * Calculate the SHA-256 hash of the content of the file, without changing the position of the buffer.
+     */
+    private static byte[] hash(ByteBuffer content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(content.duplicate());
+        return digest.digest();
+    }
+
+    /**
+     * Cached layout with the attributes of the file it was loaded from. The last modification time of the compiled
+     * file is 0 if there is none, the content hash is null if the layout was read from the compiled file.
+     */
+    private record Entry(TrackLayout layout, long lastModified, long length, long compiledLastModified,
+                         byte[] contentHash) {
+
+        private long size() {
+            return (long) layout.getWidth() * layout.getHeight() * BYTES_PER_CELL;
+        }
+    }
+
+    /**
+     * Statistics of a track cache.
+     *
+     * @param hits      the number of lookups answered from the cache
+     * @param misses    the number of lookups which had to parse the track file
+     * @param evictions the number of layouts evicted to stay within the maximum size
+     * @param entries   the number of cached layouts
+     * @param size      the estimated total size of the cached layouts in bytes
+     * @param maxSize   the maximum total size of the cached layouts in bytes
+     */
+    public record CacheStatistics(long hits, long misses, long evictions, int entries, long size, long maxSize) {
+    }
+}
@@ -0,0 +1,342 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.given.TrackSpecification;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent index of the track files of a directory, holding the metadata of every track.
+ *
+ * <p>The metadata (size of the grid, number of cars, orientation of the finish line) is determined once by parsing
+ * the track file, and stored together with the size, last modification time and CRC32 checksum of the file in the
+ * catalog file {@link #CATALOG_FILE_NAME} in the track directory. So the tracks can be listed and filtered without
+ * loading them.</p>
+ *
+ * <p>{@link #refresh()} updates the catalog incrementally: only track files which are new, or whose size or last
+ * modification time changed are read again, and entries of deleted files are removed. A file is only parsed if its
+ * checksum changed as well. Invalid track files are kept in the catalog with the error message, so they are not
+ * parsed again either.</p>
+ *
+ * <p>The catalog file is a text file with one line per track and tab separated fields. If it can not be read or has
+ * an unknown version, the catalog is rebuilt from the track files.</p>
+ */
+public final class TrackCatalog {
+
+    /**
+     * Name of the catalog file in the track directory.
+     */
+    public static final String CATALOG_FILE_NAME = ".track-catalog";
+
+    private static final String HEADER = "# racetrack track catalog v2";
+    private static final String TRACK_EXTENSION = ".txt";
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final int FIELD_COUNT = 9;
+
+    private final File directory;
+    private final File catalogFile;
+    private final Map<String, TrackInfo> entries = new TreeMap<>();
+    private boolean changed;
+
+    /**
+     * Creates the catalog of the given track directory with the entries of the existing catalog file.
+     * The entries are not checked against the track files until {@link #refresh()} is called.
+     *
+     * @param directory the track directory
+     */
+    public TrackCatalog(File directory) {
+        this.directory = directory;
+        this.catalogFile = new File(directory, CATALOG_FILE_NAME);
+        load();
+    }
+
+    /**
+     * Opens the catalog of the given track directory, refreshes it and saves it, if it has changed.
+     * If the catalog file can not be written (e.g. read-only directory), the catalog is still usable,
+     * but the changed tracks are parsed again the next time.
+     *
+     * @param directory the track directory
+     * @return the up-to-date catalog
+     * @throws IOException if the track directory can not be listed
+     */
+    public static TrackCatalog open(File directory) throws IOException {
+        TrackCatalog catalog = new TrackCatalog(directory);
+        catalog.refresh();
+        try {
+            catalog.save();
+        } catch (IOException e) {
+            // The catalog is only a cache of the track files, it is rebuilt next time
+        }
+        return catalog;
+    }
+
+    /**
+     * Updates the catalog with the current track files of the directory. Only new and changed files are read.
+     * A file whose size and checksum did not change (e.g. it was only touched) is not parsed again, only its last
+     * modification time is updated.
+     *
+     * @return the number of track files parsed
+     * @throws IOException if the track directory can not be listed
+     */
+    public synchronized int refresh() throws IOException {
+        File[] trackFiles = directory.listFiles(file -> file.isFile() && file.getName().endsWith(TRACK_EXTENSION));
+        if (trackFiles == null) {
+            throw new IOException("Failed to list the track directory " + directory);
+        }
+        Set<String> names = new HashSet<>();
+        int scanned = 0;
+        for (File trackFile: trackFiles) {
+            String name = trackFile.getName();
+            if (name.contains(FIELD_SEPARATOR) || name.contains("\n")) continue;
+            names.add(name);
+            TrackInfo info = entries.get(name);
+            if (info == null || info.size() != trackFile.length() || info.lastModified() != trackFile.lastModified()) {
+                TrackInfo updated = scan(trackFile, info);
+                entries.put(name, updated);
+                changed = true;
+                if (info == null || !hasSameContent(info, updated)) {
+                    scanned++;
+                }
+            }
+        }
+        changed |= entries.keySet().retainAll(names);
+        return scanned;
+    }
+
+    /**
+     * Updates the entry of a single track file of the directory: the file is parsed again if it exists and its
+     * content changed, otherwise its entry is removed.
+     *
+     * @param name the file name of the track
+     * @throws IOException if the track file can not be read
+     */
+    public synchronized void update(String name) throws IOException {
+        File trackFile = new File(directory, name);
+        if (trackFile.isFile() && name.endsWith(TRACK_EXTENSION) && !name.contains(FIELD_SEPARATOR)
+            && !name.contains("\n")) {
+            entries.put(name, scan(trackFile, entries.get(name)));
+            changed = true;
+        } else if (entries.remove(name) != null) {
+            changed = true;
+        }
+    }
+
+    /**
+     * Writes the catalog file, if the catalog has changed since it was loaded or saved.
+     * The file is replaced atomically.
+     *
+     * @throws IOException if the catalog file can not be written
+     */
+    public synchronized void save() throws IOException {
+        if (!changed) return;
+        File tempFile = File.createTempFile(CATALOG_FILE_NAME, ".tmp", directory);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (TrackInfo info: entries.values()) {
+                    writer.write(format(info));
+                    writer.newLine();
+                }
+            }
+            Files.move(tempFile.toPath(), catalogFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Returns the entries of all track files, including invalid ones, ordered by file name.
+     *
+     * @return the unmodifiable list of entries
+     */
+    public synchronized List<TrackInfo> getTracks() {
+        return List.copyOf(entries.values());
+    }
+
+    /**
+     * Returns the entries of the valid track files matching the given filter, ordered by file name.
+     *
+     * @param filter the filter for the tracks, e.g. {@code info -> info.carCount() >= 2}
+     * @return the unmodifiable list of matching entries
+     */
+    public synchronized List<TrackInfo> find(Predicate<TrackInfo> filter) {
+        List<TrackInfo> result = new ArrayList<>();
+        for (TrackInfo info: entries.values()) {
+            if (info.isValid() && filter.test(info)) {
+                result.add(info);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the track file of the given entry.
+     *
+     * @param info the entry of the track
+     * @return the track file
+     */
+    public File getTrackFile(TrackInfo info) {
+        return new File(directory, info.name());
+    }
+
+    /*
+     * Read the track file and determine its metadata. The file is read once: the checksum is calculated from the
+     * content, and if the content is the same as the one of the previous entry, only the last modification time is
+     * updated. Otherwise the content is parsed. The number of cars is limited like for a track loaded to race on,
+     * so a track with more cars is listed as invalid.
+     */
+    private static TrackInfo scan(File trackFile, TrackInfo previous) throws IOException {
+        long lastModified = trackFile.lastModified();
+        ByteBuffer content = TrackParser.read(trackFile);
+        long size = content.limit();
+        long checksum = checksum(content);
+        if (previous != null && previous.size() == size && previous.checksum() == checksum) {
+            return new TrackInfo(previous.name(), size, lastModified, checksum, previous.width(), previous.height(),
+                previous.carCount(), previous.finishTypes(), previous.error());
+        }
+        try {
+            TrackParser.ParsedTrack track = TrackParser.parse(content, TrackSpecification.MAX_CARS);
+            Set<SpaceType> finishTypes = EnumSet.noneOf(SpaceType.class);
+            SpaceType[] spaceTypes = SpaceType.values();
+            for (byte cell: track.cells()) {
+                SpaceType spaceType = spaceTypes[cell];
+                if (spaceType != SpaceType.WALL && spaceType != SpaceType.TRACK) {
+                    finishTypes.add(spaceType);
+                }
+            }
+            return new TrackInfo(trackFile.getName(), size, lastModified, checksum, track.width(), track.height(),
+                track.carIds().size(), Collections.unmodifiableSet(finishTypes), null);
+        } catch (InvalidFileFormatException e) {
+            return new TrackInfo(trackFile.getName(), size, lastModified, checksum, 0, 0, 0, Set.of(),
+                sanitize(e.getMessage()));
+        }
+    }
+
+    /*
+     * Calculate the CRC32 checksum of the content, without changing the position of the buffer.
+     */
+    private static long checksum(ByteBuffer content) {
+        CRC32 crc = new CRC32();
+        crc.update(content.duplicate());
+        return crc.getValue();
+    }
+
+    private static boolean hasSameContent(TrackInfo info, TrackInfo other) {
+        return info.size() == other.size() && info.checksum() == other.checksum();
+    }
+
+    /*
+     * Read the entries of the catalog file. If it is missing or invalid, the catalog starts empty.
+     */
+    private void load() {
+        if (!catalogFile.isFile()) return;
+        Map<String, TrackInfo> loaded = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(catalogFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) return;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                TrackInfo info = parse(line);
+                loaded.put(info.name(), info);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return;
+        }
+        entries.putAll(loaded);
+    }
+
+    private static String format(TrackInfo info) {
+        StringBuilder finish = new StringBuilder();
+        for (SpaceType spaceType: info.finishTypes()) {
+            finish.append(spaceType.getSpaceChar());
+        }
+        return String.join(FIELD_SEPARATOR, info.name(), Long.toString(info.size()),
+            Long.toString(info.lastModified()), Long.toHexString(info.checksum()), Integer.toString(info.width()),
+            Integer.toString(info.height()), Integer.toString(info.carCount()), finish,
+            info.error() == null ? "" : info.error());
+    }
+
+    /*
+     * Parse a line of the catalog file. Throws an IllegalArgumentException (or NumberFormatException) if invalid.
+     */
+    private static TrackInfo parse(String line) {
+        String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length != FIELD_COUNT) {
+            throw new IllegalArgumentException("Invalid catalog line: " + line);
+        }
+        Set<SpaceType> finishTypes = EnumSet.noneOf(SpaceType.class);
+        for (char c: fields[7].toCharArray()) {
+            finishTypes.add(SpaceType.spaceTypeForChar(c)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid finish type: " + c)));
+        }
+        return new TrackInfo(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+            Long.parseUnsignedLong(fields[3], 16), Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+            Integer.parseInt(fields[6]), Collections.unmodifiableSet(finishTypes),
+            fields[8].isEmpty() ? null : fields[8]);
+    }
+
+    private static String sanitize(String message) {
+        String text = message == null || message.isEmpty() ? "Invalid track file" : message;
+        return text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Metadata of a track file.
+     *
+     * @param name         the file name of the track
+     * @param size         the size of the file in bytes
+     * @param lastModified the last modification time of the file
+     * @param checksum     the CRC32 checksum of the content of the file
+     * @param width        the number of columns of the grid, 0 if the track is invalid
+     * @param height       the number of rows of the grid, 0 if the track is invalid
+     * @param carCount     the number of cars, 0 if the track is invalid
+     * @param finishTypes  the finish space types of the finish line, i.e. the directions it has to be crossed in
+     * @param error        the reason why the track is invalid, or null if it is valid
+     */
+    public record TrackInfo(String name, long size, long lastModified, long checksum, int width, int height,
+                            int carCount, Set<SpaceType> finishTypes, String error) {
+
+        /**
+         * Returns whether the track file is a valid track.
+         *
+         * @return true if the track file could be parsed
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * Returns a short description of the track, e.g. "63x30, 2 cars, finish &gt;".
+         *
+         * @return the description of the track
+         */
+        public String describe() {
+            if (!isValid()) {
+                return "invalid: " + error;
+            }
+            StringBuilder finish = new StringBuilder();
+            for (SpaceType spaceType: finishTypes) {
+                finish.append(spaceType.getSpaceChar());
+            }
+            return width + "x" + height + ", " + carCount + (carCount == 1 ? " car" : " cars") + ", finish " + finish;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.given.TrackSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable layout of a racetrack: the grid, the start positions of the cars and the finish positions,
+ * together with the indexes derived from them.
+ *
+ * <p>The layout is read from a track file as described in {@link Track}. It does not hold any state of a race,
+ * so a single instance can be shared by any number of {@link Track tracks} (one per race) and threads, without
+ * copying or locking. The state of the cars during a race is kept by the {@link Track}.</p>
+ *
+ * <p>The grid is stored row by row in a byte array holding the ordinal of the {@link SpaceType}, which is read
+ * using {@link #spaceTypeAt(int, int)}. When the layout is created, the clearance of every position is calculated:
+ * the Chebyshev distance to the nearest wall or finish position (see {@link #getClearance(int, int)}).
+ * The distance of every position to the finish line (see {@link #getDistanceToFinish(int, int)}) and the
+ * two-dimensional view of the grid (see {@link #getGrid()}) are calculated on first use. As they are derived from
+ * the immutable grid only, concurrent first calls may calculate them more than once, but always see a fully
+ * initialized result.</p>
+ */
+public final class TrackLayout {
+
+    /**
+     * Distance of positions from which the finish line can not be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Maximum clearance stored for a position. Larger clearances are capped to this value.
+     */
+    public static final int MAX_CLEARANCE = Byte.MAX_VALUE;
+
+    private static final SpaceType[] SPACE_TYPES = SpaceType.values();
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Ordinal of the {@link SpaceType} of each cell, row by row.
+     */
+    private final byte[] cells;
+
+    private final List<Character> carIds;
+    private final List<PositionVector> startPositions;
+    private final Map<Character, Integer> carIndexById;
+
+    /**
+     * Cell index of each finish position, row by row.
+     */
+    private final int[] finishCells;
+
+    /**
+     * Chebyshev distance of each cell to the nearest wall or finish cell, row by row, capped at {@link #MAX_CLEARANCE}.
+     */
+    private final byte[] clearances;
+
+    private final TrackParser.ParseStatistics parseStatistics;
+
+    /**
+     * Distance of each cell to the finish line, row by row, calculated on the first call of
+     * {@link #getDistanceToFinish(int, int)}.
+     */
+    private volatile int[] finishDistances;
+
+    /**
+     * Two-dimensional view of the grid, created on the first call of {@link #getGrid()}.
+     */
+    private volatile SpaceType[][] gridView;
+
+    /**
+     * Reads the layout from the given track file, allowing up to {@link TrackSpecification#MAX_CARS} cars.
+     *
+     * @param trackFile Reference to a file containing the track data
+     * @throws IOException                if the track file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     *                                    (no track lines, inconsistent length, no cars, too many cars)
+     */
+    public TrackLayout(File trackFile) throws IOException, InvalidFileFormatException {
+        this(trackFile, TrackSpecification.MAX_CARS);
+    }
+
+    /**
+     * Reads the layout from the given track file.
+     *
+     * @param trackFile Reference to a file containing the track data
+     * @param maxCars   the maximum number of cars allowed on the track
+     * @throws IOException                if the track file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     *                                    (no track lines, inconsistent length, no cars, too many cars)
+     */
+    public TrackLayout(File trackFile, int maxCars) throws IOException, InvalidFileFormatException {
+        this(CompiledTrackFile.load(trackFile, maxCars));
+    }
+
+    /**
+     * Creates the layout from parsed track data. The cell array is taken over and must not be modified afterwards.
+     *
+     * @param parsedTrack the parsed track data
+     */
+    TrackLayout(TrackParser.ParsedTrack parsedTrack) {
+        width = parsedTrack.width();
+        height = parsedTrack.height();
+        cells = parsedTrack.cells();
+        carIds = List.copyOf(parsedTrack.carIds());
+        startPositions = List.copyOf(parsedTrack.carPositions());
+        parseStatistics = parsedTrack.statistics();
+        Map<Character, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < carIds.size(); i++) {
+            indexById.put(carIds.get(i), i);
+        }
+        carIndexById = Map.copyOf(indexById);
+        finishCells = findFinishCells();
+        clearances = calculateClearances();
+    }
+
+    /**
+     * Return the width (number of columns) of the track grid.
+     *
+     * @return the width of the track grid
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Return the height (number of rows) of the track grid.
+     *
+     * @return Height of the track grid
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Return the number of cars starting on the track.
+     *
+     * @return the number of cars
+     */
+    public int getCarCount() {
+        return carIds.size();
+    }
+
+    /**
+     * Return the id of the car with the given index.
+     *
+     * @param carIndex the zero-based index of the car
+     * @return the id of the car
+     */
+    public char getCarId(int carIndex) {
+        return carIds.get(carIndex);
+    }
+
+    /**
+     * Return the index of the car with the given id.
+     *
+     * @param carId the id of the car
+     * @return the zero-based index of the car, or -1 if there is no car with the given id
+     */
+    public int getCarIndex(char carId) {
+        Integer carIndex = carIndexById.get(carId);
+        return carIndex == null ? -1 : carIndex;
+    }
+
+    /**
+     * Return the start position of the car with the given index.
+     *
+     * @param carIndex the zero-based index of the car
+     * @return the start position of the car
+     */
+    public PositionVector getStartPosition(int carIndex) {
+        return startPositions.get(carIndex);
+    }
+
+    /**
+     * Return the number of finish positions.
+     *
+     * @return the number of finish positions
+     */
+    public int getFinishCellCount() {
+        return finishCells.length;
+    }
+
+    /**
+     * Return the statistics of loading the track file, either parsed or read from the compiled file.
+     *
+     * @return the statistics of loading the track file
+     */
+    public TrackParser.ParseStatistics getParseStatistics() {
+        return parseStatistics;
+    }
+
+    /**
+     * Checks whether the given coordinates are outside the grid.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return true if the position is outside the grid
+     */
+    public boolean isOutOfBounds(int x, int y) {
+        return x < 0 || x >= width || y < 0 || y >= height;
+    }
+
+    /**
+     * Return the index of the cell at the given coordinates, in row by row order.
+     * The coordinates must be within the grid.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return the index of the cell
+     */
+    int cellIndex(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Return the type of space at the given coordinates.
+     * If the location is outside the track bounds, it is considered a WALL.
+     *
+     * @param x the column of the position to examine
+     * @param y the row of the position to examine
+     * @return the type of track position at the given location
+     */
+    public SpaceType spaceTypeAt(int x, int y) {
+        if (isOutOfBounds(x, y)) {
+            return SpaceType.WALL;
+        }
+        return SPACE_TYPES[cells[cellIndex(x, y)]];
+    }
+
+    /**
+     * Return the number of steps from the given position to the finish line.<br/>
+     * A step goes to one of the eight neighbour positions. The steps only cross track positions, and the last step
+     * enters a finish position from the side it has to be crossed from (e.g. from the left for
+     * {@link SpaceType#FINISH_RIGHT}). As a car crosses at most max(|vx|, |vy|) steps in a move, this is a lower bound
+     * for the remaining moves of a car.<br/>
+     * The distances of all positions are calculated on the first call, so every further call takes constant time.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return the number of steps to the finish line, 0 for finish positions, or {@link #UNREACHABLE}
+     * if the finish line can not be reached or the position is a wall or outside the track
+     */
+    public int getDistanceToFinish(int x, int y) {
+        if (isOutOfBounds(x, y)) {
+            return UNREACHABLE;
+        }
+        int[] distances = finishDistances;
+        if (distances == null) {
+            distances = calculateFinishDistances();
+            finishDistances = distances;
+        }
+        return distances[cellIndex(x, y)];
+    }
+
+    /**
+     * Return the clearance of the given position: the Chebyshev distance (max(|dx|, |dy|)) to the nearest wall
+     * or finish position. Positions outside the track count as walls.<br/>
+     * A move starting at the position, whose velocity is shorter than the clearance in both axes, only crosses
+     * track positions.
+     *
+     * @param x the column of the position
+     * @param y the row of the position
+     * @return the clearance capped at {@link #MAX_CLEARANCE}, 0 for walls, finish positions and positions outside
+     */
+    public int getClearance(int x, int y) {
+        if (isOutOfBounds(x, y)) {
+            return 0;
+        }
+        return clearances[cellIndex(x, y)];
+    }
+
+    /**
+     * Return the grid as a two-dimensional array, indexed by row and column.<br/>
+     * The array is created on the first call and then reused, so it must not be modified.
+     * Prefer {@link #spaceTypeAt(int, int)}, which does not need the additional memory.
+     *
+     * @return the space types of the grid, indexed by row and column
+     */
+    public SpaceType[][] getGrid() {
+        SpaceType[][] view = gridView;
+        if (view == null) {
+            view = new SpaceType[height][width];
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    view[row][col] = spaceTypeAt(col, row);
+                }
+            }
+            gridView = view;
+        }
+        return view;
+    }
+
+    /*
+     * Return the indexes of all finish cells, row by row.
+     */
+    private int[] findFinishCells() {
+        int count = 0;
+        for (byte cell: cells) {
+            if (isFinish(SPACE_TYPES[cell])) count++;
+        }
+        int[] result = new int[count];
+        int next = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (isFinish(SPACE_TYPES[cells[cell]])) {
+                result[next++] = cell;
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Calculate the distances to the finish line with a breadth first search, starting from all finish positions.
+     * Finish positions are only entered from their correct side and never passed through.
+     */
+    private int[] calculateFinishDistances() {
+        int[] distances = new int[cells.length];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[cells.length];
+        int head = 0;
+        int tail = 0;
+        for (int cell: finishCells) {
+            distances[cell] = 0;
+            queue[tail++] = cell;
+        }
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            SpaceType spaceType = SPACE_TYPES[cells[cell]];
+            for (int ny = y - 1; ny <= y + 1; ny++) {
+                for (int nx = x - 1; nx <= x + 1; nx++) {
+                    if (isOutOfBounds(nx, ny)) continue;
+                    int neighbour = cellIndex(nx, ny);
+                    if (distances[neighbour] != UNREACHABLE || SPACE_TYPES[cells[neighbour]] != SpaceType.TRACK) continue;
+                    if (isFinish(spaceType) && !canEnterFinish(spaceType, x - nx, y - ny)) continue;
+                    distances[neighbour] = distances[cell] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /*
+     * Calculate the clearance of all cells with a two pass distance transform: the first pass propagates the distances
+     * from the top left, the second from the bottom right neighbours. Neighbours outside the track count as walls.
+     */
+    private byte[] calculateClearances() {
+        int[] distances = new int[cells.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = cellIndex(x, y);
+                if (SPACE_TYPES[cells[cell]] != SpaceType.TRACK) continue;
+                int distance = Math.min(clearanceOf(distances, x - 1, y), clearanceOf(distances, x - 1, y - 1));
+                distance = Math.min(distance, Math.min(clearanceOf(distances, x, y - 1), clearanceOf(distances, x + 1, y - 1)));
+                distances[cell] = distance + 1;
+            }
+        }
+        byte[] result = new byte[cells.length];
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int cell = cellIndex(x, y);
+                if (distances[cell] == 0) continue;
+                int distance = Math.min(clearanceOf(distances, x + 1, y), clearanceOf(distances, x + 1, y + 1));
+                distance = Math.min(distance, Math.min(clearanceOf(distances, x, y + 1), clearanceOf(distances, x - 1, y + 1)));
+                distances[cell] = Math.min(distances[cell], distance + 1);
+                result[cell] = (byte) Math.min(distances[cell], MAX_CLEARANCE);
+            }
+        }
+        return result;
+    }
+
+    private int clearanceOf(int[] distances, int x, int y) {
+        return isOutOfBounds(x, y) ? 0 : distances[cellIndex(x, y)];
+    }
+
+    private static boolean isFinish(SpaceType spaceType) {
+        return spaceType != SpaceType.WALL && spaceType != SpaceType.TRACK;
+    }
+
+    /*
+     * Check whether a step (dx, dy) into a finish position can be part of a move crossing it in the correct direction.
+     */
+    private static boolean canEnterFinish(SpaceType finish, int dx, int dy) {
+        return switch (finish) {
+            case FINISH_LEFT -> dx <= 0;
+            case FINISH_RIGHT -> dx >= 0;
+            case FINISH_UP -> dy <= 0;
+            case FINISH_DOWN -> dy >= 0;
+            case WALL, TRACK -> false;
+        };
+    }
+}
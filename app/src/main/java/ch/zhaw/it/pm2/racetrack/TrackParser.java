@@ -0,0 +1,317 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single pass parser for track files in the text format described in {@link Track}.
+ *
+ * <p>The file is read through a {@link FileChannel}; files of at least {@link #MAPPING_THRESHOLD} bytes are memory
+ * mapped. The UTF-8 encoded content is decoded while the grid is filled, so no line strings are created.
+ * ASCII characters are mapped to their {@link SpaceType} with a 256-entry lookup table, and every character
+ * without a space type is the id of a car.</p>
+ *
+ * <p>The parser reports the number of cells and the time taken in the {@link ParseStatistics} of the result.</p>
+ */
+public final class TrackParser {
+
+    /**
+     * Minimum file size in bytes for which the file is memory mapped instead of read into the heap.
+     */
+    public static final long MAPPING_THRESHOLD = 1L << 20;
+
+    /**
+     * Marker in the lookup table for characters which are car ids.
+     */
+    private static final byte CAR = -1;
+
+    /**
+     * Ordinal of the {@link SpaceType} of each character from 0 to 255, or {@link #CAR}.
+     */
+    private static final byte[] SPACE_TYPE_BY_CHAR = new byte[256];
+
+    static {
+        Arrays.fill(SPACE_TYPE_BY_CHAR, CAR);
+        for (SpaceType spaceType: SpaceType.values()) {
+            SPACE_TYPE_BY_CHAR[spaceType.getSpaceChar()] = (byte) spaceType.ordinal();
+        }
+    }
+
+    private final int maxCars;
+
+    private byte[] cells;
+    private int width = -1;
+    private int height;
+    private final List<Character> carIds = new ArrayList<>();
+    private final List<PositionVector> carPositions = new ArrayList<>();
+    private final Set<Character> usedCarIds = new HashSet<>();
+
+    private byte[] line = new byte[256];
+    private char[] lineChars = new char[256];
+    private int lineLength;
+    private boolean blankLine = true;
+
+    private TrackParser(int maxCars) {
+        this.maxCars = maxCars;
+    }
+
+    /**
+     * Parses the given track file.
+     *
+     * @param trackFile the track file to parse
+     * @param maxCars   the maximum number of cars allowed on the track
+     * @return the parsed track data
+     * @throws IOException                if the track file can not be opened or reading fails
+     * @throws InvalidFileFormatException if the track file contains invalid data
+     *                                    (no track lines, inconsistent length, no cars, too many cars, duplicate car id)
+     */
+    public static ParsedTrack parse(File trackFile, int maxCars) throws IOException, InvalidFileFormatException {
+        long startTime = System.nanoTime();
+        return parse(read(trackFile), maxCars, startTime);
+    }
+
+    /**
+     * Parses the content of a track file, which was already read with {@link #read(File)}.
+     * The position of the buffer is not changed.
+     *
+     * @param content the content of the track file
+     * @param maxCars the maximum number of cars allowed on the track
+     * @return the parsed track data
+     * @throws InvalidFileFormatException if the content contains invalid data
+     */
+    static ParsedTrack parse(ByteBuffer content, int maxCars) throws InvalidFileFormatException {
+        return parse(content, maxCars, System.nanoTime());
+    }
+
+    private static ParsedTrack parse(ByteBuffer content, int maxCars, long startTime)
+        throws InvalidFileFormatException {
+        TrackParser parser = new TrackParser(maxCars);
+        parser.parseContent(content);
+        ParseStatistics statistics = new ParseStatistics((long) parser.width * parser.height, content.limit(),
+            System.nanoTime() - startTime);
+        return new ParsedTrack(parser.width, parser.height, parser.cells, List.copyOf(parser.carIds),
+            List.copyOf(parser.carPositions), statistics);
+    }
+
+    /**
+     * Reads the content of the track file, using a memory mapping for files of at least
+     * {@link #MAPPING_THRESHOLD} bytes.
+     *
+     * @param trackFile the track file to read
+     * @return the content of the file, from position 0 to the limit
+     * @throws IOException if the track file can not be opened or reading fails
+     */
+    static ByteBuffer read(File trackFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(trackFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Track file is too large: " + size + " bytes");
+            }
+            if (size >= MAPPING_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until the buffer is full or the end of the file is reached
+            }
+            return buffer.flip();
+        } catch (IOException e) {
+            throw new IOException("Failed to read the track file: " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Decode the content and fill the grid line by line.
+     * Leading blank lines are skipped, the track ends at the first empty line or the end of the content.
+     */
+    private void parseContent(ByteBuffer content) throws InvalidFileFormatException {
+        int size = content.limit();
+        int position = 0;
+        while (position < size) {
+            int b = content.get(position++);
+            if (b == '\n' || b == '\r') {
+                if (b == '\r' && position < size && content.get(position) == '\n') {
+                    position++;
+                }
+                if (endLine(size)) {
+                    break;
+                }
+                continue;
+            }
+            char c;
+            if (b >= 0) {
+                c = (char) b;
+            } else {
+                int length = sequenceLength(b);
+                c = decode(content, position - 1, length, size);
+                position += Math.max(length, 1) - 1;
+            }
+            addChar(c);
+        }
+        if (lineLength > 0 || !blankLine) {
+            endLine(size);
+        }
+
+        if (height == 0) {
+            throw new InvalidFileFormatException("The track file is empty or not properly formatted.");
+        }
+        if (carIds.isEmpty()) {
+            throw new InvalidFileFormatException("The track file contains no cars.");
+        }
+        int cellCount = width * height;
+        if (cells.length != cellCount) {
+            cells = Arrays.copyOf(cells, cellCount);
+        }
+    }
+
+    /*
+     * Add a character to the current line. Before the first track line, the characters are kept in the line buffer,
+     * as the line is skipped if it turns out to be blank. The cars of this line are only added by endLine, once the
+     * line is known not to be blank. Afterwards the characters are written to the grid directly.
+     */
+    private void addChar(char c) throws InvalidFileFormatException {
+        if (c > ' ') {
+            blankLine = false;
+        }
+        byte spaceType = c < SPACE_TYPE_BY_CHAR.length ? SPACE_TYPE_BY_CHAR[c] : CAR;
+        if (width < 0) {
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+                lineChars = Arrays.copyOf(lineChars, lineChars.length * 2);
+            }
+            lineChars[lineLength] = c;
+            line[lineLength++] = spaceType;
+            return;
+        }
+        if (spaceType == CAR) {
+            addCar(c, lineLength, height);
+            spaceType = (byte) SpaceType.TRACK.ordinal();
+        }
+        if (lineLength == width) {
+            throw new InvalidFileFormatException("Inconsistent track line length");
+        }
+        cells[height * width + lineLength++] = spaceType;
+    }
+
+    private void addCar(char id, int x, int y) throws InvalidFileFormatException {
+        if (!usedCarIds.add(id)) {
+            throw new InvalidFileFormatException("Duplicate car id: " + id);
+        }
+        if (carIds.size() >= maxCars) {
+            throw new InvalidFileFormatException("Amount of cars exceeds the maximum of " + maxCars);
+        }
+        carIds.add(id);
+        carPositions.add(new PositionVector(x, y));
+    }
+
+    /*
+     * Finish the current line. Returns true, if the track is complete.
+     */
+    private boolean endLine(int contentSize) throws InvalidFileFormatException {
+        try {
+            if (width < 0) {
+                if (blankLine) {
+                    // Skip empty lines at the beginning, including the whitespace characters taken for cars
+                    return false;
+                }
+                width = lineLength;
+                for (int x = 0; x < width; x++) {
+                    if (line[x] == CAR) {
+                        addCar(lineChars[x], x, 0);
+                        line[x] = (byte) SpaceType.TRACK.ordinal();
+                    }
+                }
+                // Assume one byte per character, the grid grows if there are more lines
+                cells = new byte[Math.max(width, width * (contentSize / (width + 1) + 1))];
+                System.arraycopy(line, 0, cells, 0, width);
+                line = null;
+                lineChars = null;
+            } else if (lineLength == 0) {
+                return true;
+            } else if (lineLength != width) {
+                throw new InvalidFileFormatException("Inconsistent track line length");
+            }
+            height++;
+            if ((long) (height + 1) * width > cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(cells.length * 2, (height + 1) * width));
+            }
+            return false;
+        } finally {
+            lineLength = 0;
+            blankLine = true;
+        }
+    }
+
+    /*
+     * Return the number of bytes of the UTF-8 sequence starting with the given byte, 0 if it is not a start byte.
+     */
+    private static int sequenceLength(int b) {
+        if ((b & 0xE0) == 0xC0) return 2;
+        if ((b & 0xF0) == 0xE0) return 3;
+        if ((b & 0xF8) == 0xF0) return 4;
+        return 0;
+    }
+
+    /*
+     * Decode a UTF-8 sequence to a char. Malformed sequences are decoded as replacement character,
+     * like the UTF-8 decoder of the JDK does.
+     */
+    private static char decode(ByteBuffer content, int start, int length, int size) throws InvalidFileFormatException {
+        if (length == 0 || start + length > size) {
+            return '�';
+        }
+        if (length == 4) {
+            throw new InvalidFileFormatException("Unsupported character in track file at byte " + start);
+        }
+        int codePoint = content.get(start) & (length == 2 ? 0x1F : 0x0F);
+        for (int i = 1; i < length; i++) {
+            int continuation = content.get(start + i);
+            if ((continuation & 0xC0) != 0x80) {
+                return '�';
+            }
+            codePoint = (codePoint << 6) | (continuation & 0x3F);
+        }
+        return (char) codePoint;
+    }
+
+    /**
+     * Data of a parsed track.
+     *
+     * @param width        the number of columns of the grid
+     * @param height       the number of rows of the grid
+     * @param cells        the ordinal of the {@link SpaceType} of each cell, row by row
+     * @param carIds       the ids of the cars, in the order of their appearance in the file
+     * @param carPositions the start positions of the cars, in the same order
+     * @param statistics   the statistics of the parsing
+     */
+    public record ParsedTrack(int width, int height, byte[] cells, List<Character> carIds,
+                              List<PositionVector> carPositions, ParseStatistics statistics) {
+    }
+
+    /**
+     * Statistics of the parsing of a track file.
+     *
+     * @param cells        the number of cells parsed
+     * @param bytes        the number of bytes read
+     * @param elapsedNanos the duration of reading and parsing in nanoseconds
+     */
+    public record ParseStatistics(long cells, long bytes, long elapsedNanos) {
+
+        /**
+         * Returns the parse throughput.
+         *
+         * @return the number of cells parsed per second
+         */
+        public double cellsPerSecond() {
+            return elapsedNanos == 0 ? 0 : cells * 1e9 / elapsedNanos;
+        }
+    }
+}
@@ -4,12 +4,13 @@ import ch.zhaw.it.pm2.racetrack.strategy.DoNotMoveStrategy;
 import ch.zhaw.it.pm2.racetrack.strategy.MoveListStrategy;
 import ch.zhaw.it.pm2.racetrack.strategy.UserMoveStrategy;
 import ch.zhaw.it.pm2.racetrack.strategy.PathFollowerMoveStrategy;
-import ch.zhaw.it.pm2.racetrack.strategy.PathFinderMoveStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.ShortestPathMoveStrategy;
 import org.beryx.textio.TextIO;
 import org.beryx.textio.TextIoFactory;
 import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
 
 import java.io.File;
+import java.util.List;
 
 /**
  * Class representing the user interface of the game.
@@ -17,6 +18,7 @@ import java.io.File;
 public class UserInterface {
 
     private static final TextIO textIO = TextIoFactory.getTextIO();
+    private static final Renderer RENDERER = new TextIoRenderer();
 
     /**
      * Prints a welcome message to the user.
@@ -28,12 +30,13 @@ public class UserInterface {
     /**
      * Prints a prompt to the user to select a track.
      *
-     * @param listOfFiles the list of files representing the tracks
+     * @param tracks the catalog entries of the tracks
      */
-    public static void printTrackSelectionPrompt(File[] listOfFiles) {
+    public static void printTrackSelectionPrompt(List<TrackCatalog.TrackInfo> tracks) {
         textIO.getTextTerminal().println("Please select a track:");
-        for (int i = 0; i < listOfFiles.length; i++) {
-            textIO.getTextTerminal().println(i + 1 + ": " + listOfFiles[i].getName());
+        for (int i = 0; i < tracks.size(); i++) {
+            TrackCatalog.TrackInfo track = tracks.get(i);
+            textIO.getTextTerminal().println(i + 1 + ": " + track.name() + " (" + track.describe() + ")");
         }
     }
 
@@ -53,11 +56,13 @@ public class UserInterface {
     /**
      * Prompts the user to select a move strategy for a car.
      *
-     * @param car   the car for which the move strategy is selected
-     * @param track the track on which the car is placed
+     * @param car          the car for which the move strategy is selected
+     * @param track        the track on which the car is placed
+     * @param moveListFile the file with the moves of the move list strategy
+     * @param waypointFile the file with the waypoints of the path follower strategy
      * @return the selected move strategy
      */
-    public static MoveStrategy promptMoveStrategy(Car car, Track track) {
+    public static MoveStrategy promptMoveStrategy(Car car, Track track, File moveListFile, File waypointFile) {
         textIO.getTextTerminal().println("\nPlease select a move strategy for car " + car.getId() + ":");
         for (MoveStrategy.StrategyType strategyType: MoveStrategy.StrategyType.values()) {
             textIO.getTextTerminal().println(strategyType.ordinal() + 1 + ": " + strategyType);
@@ -69,19 +74,19 @@ public class UserInterface {
             .read("Enter the number of the move strategy you want to select:") - 1;
 
         return switch (MoveStrategy.StrategyType.values()[strategyIndex]) {
-            case DO_NOT_MOVE -> new DoNotMoveStrategy();
+            case DO_NOT_MOVE -> new DoNotMoveStrategy(RENDERER);
             case USER -> new UserMoveStrategy();
-            case MOVE_LIST -> new MoveListStrategy("src/main/resources/moves/challenge-car-a.txt");
-            case PATH_FOLLOWER ->
-                new PathFollowerMoveStrategy("src/main/resources/follower/challenge_handout_points.txt", car);
-            case PATH_FINDER -> new PathFinderMoveStrategy(car, track);
+            case MOVE_LIST -> new MoveListStrategy(moveListFile.getPath(), RENDERER);
+            case PATH_FOLLOWER -> new PathFollowerMoveStrategy(waypointFile.getPath(), car);
+            case PATH_FINDER -> new ShortestPathMoveStrategy(car, track);
         };
     }
 
     /**
      * Reads the next direction from the user.
+     * QUIT is returned as is, it is no direction, so the move strategy ends the race.
      *
-     * @return the next direction
+     * @return the next direction, or QUIT
      */
     public static String getUserInputDirection() {
         Direction direction = null;
@@ -91,7 +96,7 @@ public class UserInterface {
                 direction = Direction.valueOf(userInput.toUpperCase());
             } catch (IllegalArgumentException e) {
                 if (userInput.equalsIgnoreCase("QUIT"))
-                    System.exit(0);
+                    return userInput;
                 textIO.getTextTerminal().println("Invalid direction. Please enter either 'UP', 'DOWN', 'LEFT', 'RIGHT', 'NONE', 'QUIT', 'DOWN_RIGHT', 'UP_RIGHT', 'UP_LEFT', 'DOWN_LEFT'.");
             }
         }
@@ -144,13 +149,25 @@ public class UserInterface {
     }
 
     /**
-     * Prompts the user to quit the game.
+     * Prints the final game status of a race which ended without a winner.
+     *
+     * @param track  the track on which the game was played
+     * @param reason the reason why the race ended
+     */
+    public static void printRaceEnded(Track track, String reason) {
+        textIO.getTextTerminal().println("Final game status:");
+        textIO.getTextTerminal().println(track.toString());
+
+        textIO.getTextTerminal().println("The race ended without a winner: " + reason);
+    }
+
+    /**
+     * Prompts the user to quit the game, and closes the terminal.
+     * The application ends when the main method returns, without exiting the virtual machine.
      */
     public static void promptQuit() {
         textIO.getTextTerminal().println("Type 'q' to quit the game...");
-        String input = textIO.newStringInputReader().read("");
-        if (input.equalsIgnoreCase("q")) {
-            System.exit(0);
-        }
+        textIO.newStringInputReader().read("");
+        textIO.dispose();
     }
 }
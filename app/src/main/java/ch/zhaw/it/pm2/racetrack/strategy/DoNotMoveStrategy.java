@@ -1,12 +1,32 @@
 package ch.zhaw.it.pm2.racetrack.strategy;
 
 import ch.zhaw.it.pm2.racetrack.Direction;
-import ch.zhaw.it.pm2.racetrack.UserInterface;
+import ch.zhaw.it.pm2.racetrack.NoOpRenderer;
+import ch.zhaw.it.pm2.racetrack.Renderer;
 
 /**
  * Do not accelerate in any direction.
  */
 public class DoNotMoveStrategy implements MoveStrategy {
+
+    private final Renderer renderer;
+
+    /**
+     * Creates the strategy without printing its moves.
+     */
+    public DoNotMoveStrategy() {
+        this(NoOpRenderer.INSTANCE);
+    }
+
+    /**
+     * Creates the strategy.
+     *
+     * @param renderer the renderer printing the moves
+     */
+    public DoNotMoveStrategy(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -14,7 +34,7 @@ public class DoNotMoveStrategy implements MoveStrategy {
      */
     @Override
     public Direction nextMove() {
-        UserInterface.printSomething("Do Not Move Strategy for this car: No move is made.\n");
+        renderer.printMessage("Do Not Move Strategy for this car: No move is made.\n");
         return Direction.NONE;
     }
 }
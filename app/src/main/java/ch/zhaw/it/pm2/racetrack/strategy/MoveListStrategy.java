@@ -1,7 +1,8 @@
 package ch.zhaw.it.pm2.racetrack.strategy;
 
 import ch.zhaw.it.pm2.racetrack.Direction;
-import ch.zhaw.it.pm2.racetrack.UserInterface;
+import ch.zhaw.it.pm2.racetrack.NoOpRenderer;
+import ch.zhaw.it.pm2.racetrack.Renderer;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -14,12 +15,25 @@ import java.util.List;
  */
 public class MoveListStrategy implements MoveStrategy {
 
+    private final Renderer renderer;
+
     /**
-     * Constructs a new MoveListStrategy object.
+     * Constructs a new MoveListStrategy object without printing errors reading the file.
      *
      * @param path The path to the file containing the list of directions.
      */
     public MoveListStrategy(String path) {
+        this(path, NoOpRenderer.INSTANCE);
+    }
+
+    /**
+     * Constructs a new MoveListStrategy object.
+     *
+     * @param path     The path to the file containing the list of directions.
+     * @param renderer The renderer printing errors reading the file.
+     */
+    public MoveListStrategy(String path, Renderer renderer) {
+        this.renderer = renderer;
         directionList = loadMovesFromFile(path);
     }
 
@@ -52,7 +66,7 @@ public class MoveListStrategy implements MoveStrategy {
                 moves.add(MoveStrategy.readDirection(line));
             }
         } catch (IOException e) {
-            UserInterface.printSomething("Error reading moves file: " + e.getMessage());
+            renderer.printMessage("Error reading moves file: " + e.getMessage());
         }
         return moves;
     }
@@ -13,15 +13,21 @@ public class PathFinderMoveStrategy implements MoveStrategy {
 
     private boolean firstCall = true;
 
-    private ArrayList<PositionVector> visited = new ArrayList<>();
+    private LongHashSet visited = new LongHashSet();
     private ArrayList<Node> plausiblePath = new ArrayList<>();
 
     private Game game;
+    private final Renderer renderer;
 
     public PathFinderMoveStrategy(Car car, Track track) {
+        this(car, track, NoOpRenderer.INSTANCE);
+    }
+
+    public PathFinderMoveStrategy(Car car, Track track, Renderer renderer) {
         this.car = car;
         this.track = track;
-        this.game = new Game(track);
+        this.renderer = renderer;
+        this.game = new Game(track, NoOpRenderer.INSTANCE);
     }
 
     public boolean nodeWon(Node n) {
@@ -43,7 +49,7 @@ public class PathFinderMoveStrategy implements MoveStrategy {
         Node nextNode = new Node(n.position, n.velocity, d, n.distance + 1, n);
         nextNode.accelerate(d);
 
-        if (nodeCrash(nextNode) || visited.contains(nextNode.position)) {
+        if (nodeCrash(nextNode) || visited.contains(PackedState.position(nextNode.position))) {
             return null;
         } else {
             return nextNode;
@@ -58,7 +64,7 @@ public class PathFinderMoveStrategy implements MoveStrategy {
                 return nextNode;
             }
         }
-        UserInterface.printSomething("Going to parent Node");
+        renderer.printMessage("Going to parent Node");
 
         return tryDirection(plausiblePath.removeLast());
     }
@@ -72,10 +78,12 @@ public class PathFinderMoveStrategy implements MoveStrategy {
             if (nodeWon(nextNode)) {
                 goalReached = true;
             }
-            visited.add(nextNode.position);
+            visited.add(PackedState.position(nextNode.position));
             plausiblePath.add(nextNode);
-            UserInterface.printSomething(nextNode.toString());
-            UserInterface.printSomething("Step: " + plausiblePath.size());
+            if (renderer.isEnabled()) {
+                renderer.printMessage(nextNode.toString());
+                renderer.printMessage("Step: " + plausiblePath.size());
+            }
         }
     }
 
@@ -0,0 +1,319 @@
+package ch.zhaw.it.pm2.racetrack.strategy;
+
+import ch.zhaw.it.pm2.racetrack.Car;
+import ch.zhaw.it.pm2.racetrack.Direction;
+import ch.zhaw.it.pm2.racetrack.LongIntHashMap;
+import ch.zhaw.it.pm2.racetrack.PackedState;
+import ch.zhaw.it.pm2.racetrack.PathTemplateCache;
+import ch.zhaw.it.pm2.racetrack.PathVisitor;
+import ch.zhaw.it.pm2.racetrack.PositionVector;
+import ch.zhaw.it.pm2.racetrack.SpaceType;
+import ch.zhaw.it.pm2.racetrack.Track;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Determines the moves of the route with the fewest turns to the finish line.
+ *
+ * <p>The route is searched with A* over the states of the car, consisting of its position and velocity.
+ * A move is simulated like in the game: the car accelerates and crosses all positions on the path to its
+ * next position. Moves crashing into a wall, and moves crossing the finish line in the wrong direction
+ * are not considered. In the first move, the positions of the other active cars are treated as obstacles.
+ * The route ends with the first move crossing the finish line in the correct direction.</p>
+ *
+ * <p>The heuristic is the minimum number of turns needed to cover the {@link Track#getDistanceToFinish(int, int)
+ * distance to the finish line}, if the car accelerated all the time. It never overestimates the remaining turns,
+ * so the route found is optimal.</p>
+ *
+ * <p>The search stops after expanding the given number of states. If no route is found, the car does not move.
+ * The route is searched again, if the car is not in the expected state (e.g. moved by another strategy)
+ * or all moves of the route have been made. After a failed search, the route is only searched again once
+ * the position or velocity of the car changed, so a car without a route does not search in every turn.
+ * The statistics of the last search are available with {@link #getLastSearchStatistics()}.</p>
+ */
+public class ShortestPathMoveStrategy implements MoveStrategy {
+
+    /**
+     * Default maximum number of states expanded by a single search.
+     */
+    public static final int DEFAULT_STATE_BUDGET = 2_000_000;
+
+    private static final int MOVE_VALID = 0;
+    private static final int MOVE_CRASHED = 1;
+    private static final int MOVE_FINISHED = 2;
+
+    private final Car car;
+    private final Track track;
+    private final int stateBudget;
+    private final PathTemplateCache pathTemplates;
+
+    private final List<Direction> plannedMoves = new ArrayList<>();
+    private long[] expectedStates = new long[0];
+    private int nextMoveIndex;
+    private boolean searchFailed;
+    private long failedState;
+    private SearchStatistics lastSearchStatistics;
+
+    private final PathVisitor moveVisitor = this::checkPosition;
+    private int moveVelocityX;
+    private int moveVelocityY;
+    private boolean firstMove;
+    private int moveResult;
+
+    /**
+     * Creates the strategy using the {@link #DEFAULT_STATE_BUDGET}.
+     *
+     * @param car   the car to determine the moves for
+     * @param track the track the car is racing on
+     */
+    public ShortestPathMoveStrategy(Car car, Track track) {
+        this(car, track, DEFAULT_STATE_BUDGET);
+    }
+
+    /**
+     * Creates the strategy.
+     *
+     * @param car         the car to determine the moves for
+     * @param track       the track the car is racing on
+     * @param stateBudget the maximum number of states expanded by a single search
+     */
+    public ShortestPathMoveStrategy(Car car, Track track, int stateBudget) {
+        this.car = car;
+        this.track = track;
+        this.stateBudget = stateBudget;
+        this.pathTemplates = PathTemplateCache.getDefault();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the next move of the shortest route, or NONE if no route to the finish line was found
+     */
+    @Override
+    public Direction nextMove() {
+        long state = currentState();
+        if (nextMoveIndex >= plannedMoves.size() || expectedStates[nextMoveIndex] != state) {
+            if (searchFailed && state == failedState) {
+                return Direction.NONE;
+            }
+            findPath();
+        }
+        if (plannedMoves.isEmpty()) {
+            return Direction.NONE;
+        }
+        return plannedMoves.get(nextMoveIndex++);
+    }
+
+    /**
+     * Returns the statistics of the last search.
+     *
+     * @return the statistics of the last search, or null if no search was made yet
+     */
+    public SearchStatistics getLastSearchStatistics() {
+        return lastSearchStatistics;
+    }
+
+    /*
+     * Return the packed state of the car, to compare it with the state expected before the next planned move.
+     */
+    private long currentState() {
+        PositionVector position = car.getPosition();
+        PositionVector velocity = car.getVelocity();
+        return PackedState.state(position.getX(), position.getY(), velocity.getX(), velocity.getY());
+    }
+
+    /**
+     * Searches the route with the fewest turns from the current state of the car to the finish line,
+     * and replaces the planned moves with the moves of this route.
+     *
+     * @return true if a route was found, false otherwise
+     */
+    public boolean findPath() {
+        long startTime = System.nanoTime();
+        plannedMoves.clear();
+        nextMoveIndex = 0;
+
+        PositionVector position = car.getPosition();
+        PositionVector velocity = car.getVelocity();
+        Node start = new Node(position.getX(), position.getY(), velocity.getX(), velocity.getY(), 0, null, null);
+        start.estimate = heuristic(start.x, start.y, start.vx, start.vy);
+
+        PriorityQueue<Node> open = new PriorityQueue<>(
+            Comparator.comparingInt((Node node) -> node.estimate).thenComparingInt(node -> -node.turns));
+        LongIntHashMap bestTurns = new LongIntHashMap();
+        open.add(start);
+        bestTurns.put(start.state(), 0);
+
+        Node goal = null;
+        int expandedStates = 0;
+        while (!open.isEmpty() && expandedStates < stateBudget) {
+            Node node = open.poll();
+            if (node.finished) {
+                goal = node;
+                break;
+            }
+            if (node.turns > bestTurns.get(node.state(), Integer.MAX_VALUE)) {
+                continue;
+            }
+            expandedStates++;
+            firstMove = node == start;
+            for (Direction direction: Direction.values()) {
+                int vx = node.vx + direction.vector.getX();
+                int vy = node.vy + direction.vector.getY();
+                int result = simulateMove(node.x, node.y, vx, vy);
+                if (result == MOVE_CRASHED) {
+                    continue;
+                }
+                Node next = new Node(node.x + vx, node.y + vy, vx, vy, node.turns + 1, node, direction);
+                if (result == MOVE_FINISHED) {
+                    next.finished = true;
+                    next.estimate = next.turns;
+                    open.add(next);
+                    continue;
+                }
+                int remaining = heuristic(next.x, next.y, vx, vy);
+                long state = next.state();
+                if (remaining == Track.UNREACHABLE || bestTurns.get(state, Integer.MAX_VALUE) <= next.turns) {
+                    continue;
+                }
+                bestTurns.put(state, next.turns);
+                next.estimate = next.turns + remaining;
+                open.add(next);
+            }
+        }
+
+        if (goal != null) {
+            expectedStates = new long[goal.turns];
+            for (Node node = goal; node.parent != null; node = node.parent) {
+                plannedMoves.add(node.direction);
+                expectedStates[node.parent.turns] = node.parent.state();
+            }
+            Collections.reverse(plannedMoves);
+        }
+        searchFailed = goal == null;
+        failedState = start.state();
+        lastSearchStatistics = new SearchStatistics(goal != null, plannedMoves.size(), expandedStates,
+            bestTurns.size(), System.nanoTime() - startTime);
+        return goal != null;
+    }
+
+    /*
+     * Simulate a move from the given position with the given (already accelerated) velocity.
+     */
+    private int simulateMove(int x, int y, int vx, int vy) {
+        moveVelocityX = vx;
+        moveVelocityY = vy;
+        moveResult = MOVE_VALID;
+        pathTemplates.traverse(x, y, vx, vy, moveVisitor);
+        return moveResult;
+    }
+
+    /*
+     * Check a position on the path of the simulated move. Stops the move, if the car crashes or crosses
+     * the finish line.
+     */
+    private boolean checkPosition(int x, int y) {
+        if (firstMove && track.isOccupiedByOtherActiveCar(x, y, track.getCarIndex(car.getId()))) {
+            moveResult = MOVE_CRASHED;
+            return true;
+        }
+        SpaceType spaceType = track.spaceTypeAt(x, y);
+        if (spaceType == SpaceType.TRACK) {
+            return false;
+        }
+        moveResult = isFinishCrossedForward(spaceType, moveVelocityX, moveVelocityY) ? MOVE_FINISHED : MOVE_CRASHED;
+        return true;
+    }
+
+    /*
+     * Check whether the finish position of the given type is crossed in the correct direction with the velocity.
+     * Walls are never crossed.
+     */
+    private static boolean isFinishCrossedForward(SpaceType spaceType, int vx, int vy) {
+        return switch (spaceType) {
+            case FINISH_LEFT -> vx < 0;
+            case FINISH_RIGHT -> vx > 0;
+            case FINISH_UP -> vy < 0;
+            case FINISH_DOWN -> vy > 0;
+            case WALL, TRACK -> false;
+        };
+    }
+
+    /*
+     * Return the minimum number of turns to reach the finish line from the given state,
+     * or UNREACHABLE if the finish line can not be reached.
+     * With the speed s, the car moves at most s+1, s+2, ... positions in the following turns.
+     */
+    private int heuristic(int x, int y, int vx, int vy) {
+        int distance = track.getDistanceToFinish(x, y);
+        if (distance == Track.UNREACHABLE) {
+            return Track.UNREACHABLE;
+        }
+        return minTurns(Math.max(Math.abs(vx), Math.abs(vy)), distance);
+    }
+
+    /*
+     * Return the smallest t with t*s + t*(t+1)/2 >= d, the positive root of t^2 + (2s+1)t - 2d = 0 rounded up.
+     * The root is computed in floating point and corrected by one turn, if rounding made it too large or small.
+     */
+    private static int minTurns(int speed, int distance) {
+        long b = 2L * speed + 1;
+        int turns = (int) Math.ceil((Math.sqrt((double) b * b + 8.0 * distance) - b) / 2);
+        if (covered(speed, turns) < distance) {
+            turns++;
+        } else if (turns > 0 && covered(speed, turns - 1) >= distance) {
+            turns--;
+        }
+        return turns;
+    }
+
+    private static long covered(int speed, int turns) {
+        return (long) turns * speed + (long) turns * (turns + 1) / 2;
+    }
+
+    /**
+     * Statistics of a search.
+     *
+     * @param pathFound      true if a route to the finish line was found
+     * @param turns          the number of turns of the route found
+     * @param expandedStates the number of states expanded by the search
+     * @param visitedStates  the number of distinct states reached by the search
+     * @param elapsedNanos   the duration of the search in nanoseconds
+     */
+    public record SearchStatistics(boolean pathFound, int turns, int expandedStates, int visitedStates,
+                                   long elapsedNanos) {
+    }
+
+    /**
+     * Node of the search, reached with the given number of turns.
+     */
+    private static final class Node {
+        private final int x;
+        private final int y;
+        private final int vx;
+        private final int vy;
+        private final int turns;
+        private final Node parent;
+        private final Direction direction;
+        private int estimate;
+        private boolean finished;
+
+        private Node(int x, int y, int vx, int vy, int turns, Node parent, Direction direction) {
+            this.x = x;
+            this.y = y;
+            this.vx = vx;
+            this.vy = vy;
+            this.turns = turns;
+            this.parent = parent;
+            this.direction = direction;
+        }
+
+        private long state() {
+            return PackedState.state(x, y, vx, vy);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrayGameTest {
+
+    private static final int TURNS = 200;
+    private static final int SEEDS = 50;
+
+    /*
+     * Play the same random moves in a Game and an ArrayGame and compare the state of all cars after every turn.
+     */
+    private static void assertSameGame(TrackLayout layout, long seed) {
+        Track track = new Track(layout);
+        Game game = new Game(track, NoOpRenderer.INSTANCE);
+        ArrayGame arrayGame = new ArrayGame(layout);
+        Random random = new Random(seed);
+        Direction[] directions = Direction.values();
+
+        for (int turn = 0; turn < TURNS && game.getWinner() == Game.NO_WINNER; turn++) {
+            // Prefer small accelerations, so the cars do not crash too early
+            Direction acceleration = random.nextInt(3) == 0 ? directions[random.nextInt(directions.length)] : Direction.NONE;
+            game.doCarTurn(acceleration);
+            arrayGame.doCarTurn(acceleration);
+
+            String context = "seed " + seed + ", turn " + turn;
+            assertEquals(game.getWinner(), arrayGame.getWinner(), context);
+            assertEquals(game.getCurrentCarIndex(), arrayGame.getCurrentCarIndex(), context);
+            for (int i = 0; i < track.getCarCount(); i++) {
+                assertEquals(game.getCarPosition(i), arrayGame.getCarPosition(i), context);
+                assertEquals(game.getCarVelocity(i), arrayGame.getCarVelocity(i), context);
+                assertEquals(track.getCar(i).isCrashed(), arrayGame.isCarCrashed(i), context);
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultAsGame() throws IOException, InvalidFileFormatException {
+        for (String trackName: new String[]{"challenge.txt", "quarter-mile.txt", "oval-clock-up.txt"}) {
+            TrackLayout layout = new TrackLayout(new File(new Config().getTrackDirectory(), trackName));
+            for (long seed = 0; seed < SEEDS; seed++) {
+                assertSameGame(layout, seed);
+            }
+        }
+    }
+
+    @Test
+    public void testSameResultAsGameWithManyCars() throws IOException, InvalidFileFormatException {
+        String carIds = "abcdefghijklmnopqrst";
+        String row = "#" + " ".repeat(carIds.length() + 1) + "#\n";
+        String walls = "#".repeat(carIds.length() + 3) + "\n";
+        String openRow = " ".repeat(carIds.length() + 1) + "\n";
+        String[] tracks = {
+            walls + row + row + "#" + carIds + "<#\n" + row + row + walls,
+            // Without an outer wall, the paths of the cars leave the grid
+            openRow + carIds + "<\n" + openRow
+        };
+        for (String content: tracks) {
+            File trackFile = File.createTempFile("many-cars", ".txt");
+            trackFile.deleteOnExit();
+            Files.writeString(trackFile.toPath(), content);
+            TrackLayout layout = new TrackLayout(trackFile, carIds.length());
+            assertTrue(layout.getCarCount() > ArrayGame.SCAN_LIMIT);
+
+            for (long seed = 0; seed < SEEDS; seed++) {
+                assertSameGame(layout, seed);
+            }
+        }
+    }
+
+    @Test
+    public void testWinOutsideGridWithManyCars() throws IOException, InvalidFileFormatException {
+        String carIds = "abcdefghij";
+        File trackFile = File.createTempFile("open-finish", ".txt");
+        trackFile.deleteOnExit();
+        // The finish line is on the edge of a track without an outer wall
+        Files.writeString(trackFile.toPath(), "^".repeat(carIds.length()) + "\n"
+            + " ".repeat(carIds.length()) + "\n" + carIds + "\n");
+        TrackLayout layout = new TrackLayout(trackFile, carIds.length());
+        assertTrue(layout.getCarCount() > ArrayGame.SCAN_LIMIT);
+        Track track = new Track(layout);
+        Game game = new Game(track, NoOpRenderer.INSTANCE);
+        ArrayGame arrayGame = new ArrayGame(layout);
+
+        // The first car accelerates twice, so its second move crosses the finish line and leaves the grid
+        for (int turn = 0; turn <= carIds.length(); turn++) {
+            Direction acceleration = turn % carIds.length() == 0 ? Direction.UP : Direction.NONE;
+            game.doCarTurn(acceleration);
+            arrayGame.doCarTurn(acceleration);
+        }
+
+        assertEquals(0, arrayGame.getWinner());
+        assertEquals(game.getWinner(), arrayGame.getWinner());
+        assertEquals(new PositionVector(0, -1), arrayGame.getCarPosition(0));
+        assertEquals(game.getCarPosition(0), arrayGame.getCarPosition(0));
+    }
+
+    @Test
+    public void testPlayUntilFinished() throws IOException, InvalidFileFormatException {
+        TrackLayout layout = new TrackLayout(new File(new Config().getTrackDirectory(), "challenge.txt"));
+        ArrayGame game = new ArrayGame(layout);
+        game.setCarMoveStrategy(0, () -> Direction.UP);
+        game.setCarMoveStrategy(1, () -> Direction.NONE);
+
+        assertEquals(1, game.playUntilFinished(100));
+        assertTrue(game.isCarCrashed(0));
+        assertEquals(1, game.getWinner());
+
+        Car snapshot = game.getCarSnapshot(0);
+        assertTrue(snapshot.isCrashed());
+        assertEquals(game.getCarPosition(0), snapshot.getPosition());
+        assertEquals(new PositionVector(0, -1), snapshot.getVelocity());
+    }
+}
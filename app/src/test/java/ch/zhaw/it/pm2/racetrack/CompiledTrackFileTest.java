@@ -0,0 +1,129 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledTrackFileTest {
+
+    private File trackFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        File directory = Files.createTempDirectory("compiled-tracks").toFile();
+        directory.deleteOnExit();
+        trackFile = new File(directory, "challenge.txt");
+        trackFile.deleteOnExit();
+        CompiledTrackFile.compiledFileFor(trackFile).deleteOnExit();
+        Files.copy(new File(new Config().getTrackDirectory(), "challenge.txt").toPath(), trackFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void testCompiledFileIsSibling() {
+        File compiledFile = CompiledTrackFile.compiledFileFor(trackFile);
+        assertEquals(trackFile.getParentFile(), compiledFile.getParentFile());
+        assertEquals("challenge" + CompiledTrackFile.EXTENSION, compiledFile.getName());
+        assertTrue(CompiledTrackFile.isCompiledFile(compiledFile));
+        assertFalse(CompiledTrackFile.isCompiledFile(trackFile));
+    }
+
+    @Test
+    public void testCompiledTrackEqualsParsedTrack() throws IOException, InvalidFileFormatException {
+        Track parsed = new Track(trackFile);
+        File compiledFile = CompiledTrackFile.compile(trackFile);
+
+        CompiledTrackFile.Header header = CompiledTrackFile.readHeader(compiledFile);
+        assertEquals(parsed.getWidth(), header.width());
+        assertEquals(parsed.getHeight(), header.height());
+        assertEquals(parsed.getCarCount(), header.carIds().size());
+        assertTrue(header.isUpToDate(trackFile));
+
+        Track loaded = new Track(trackFile);
+        assertEquals(compiledFile.length(), loaded.getParseStatistics().bytes(), "Compiled file should be loaded");
+        assertEquals(parsed.toString(), loaded.toString());
+        for (int i = 0; i < parsed.getCarCount(); i++) {
+            assertEquals(parsed.getCar(i).getId(), loaded.getCar(i).getId());
+            assertEquals(parsed.getCar(i).getPosition(), loaded.getCar(i).getPosition());
+        }
+        assertEquals(parsed.toString(), new Track(compiledFile).toString());
+    }
+
+    @Test
+    public void testOutdatedCompiledFileIsIgnored() throws IOException, InvalidFileFormatException {
+        CompiledTrackFile.compile(trackFile);
+        assertTrue(trackFile.setLastModified(trackFile.lastModified() + 10_000));
+
+        Track loaded = new Track(trackFile);
+        assertEquals(trackFile.length(), loaded.getParseStatistics().bytes(), "Text file should be parsed");
+    }
+
+    @Test
+    public void testCorruptedCompiledFile() throws IOException, InvalidFileFormatException {
+        File compiledFile = CompiledTrackFile.compile(trackFile);
+        try (RandomAccessFile file = new RandomAccessFile(compiledFile, "rw")) {
+            file.seek(file.length() - 1);
+            file.write('x');
+        }
+
+        assertThrows(InvalidFileFormatException.class, () -> new Track(compiledFile));
+        Track loaded = new Track(trackFile);
+        assertEquals(trackFile.length(), loaded.getParseStatistics().bytes(), "Text file should be parsed");
+    }
+
+    /**
+     * Test that a cell which is no space type is not written, as the cells are not validated when loading.
+     */
+    @Test
+    public void testInvalidSpaceTypeIsNotWritten() throws IOException, InvalidFileFormatException {
+        TrackParser.ParsedTrack parsed = TrackParser.parse(trackFile, Track.MAX_CARS);
+        byte[] cells = parsed.cells().clone();
+        cells[0] = (byte) SpaceType.values().length;
+        TrackParser.ParsedTrack invalid = new TrackParser.ParsedTrack(parsed.width(), parsed.height(), cells,
+            parsed.carIds(), parsed.carPositions(), parsed.statistics());
+
+        assertThrows(IllegalArgumentException.class, () -> CompiledTrackFile.write(invalid, trackFile.length(),
+            trackFile.lastModified(), OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Test that invalid start positions in the header are rejected, as the checksum only covers the body.
+     */
+    @Test
+    public void testInvalidStartPositionInCompiledFile() throws IOException, InvalidFileFormatException {
+        TrackParser.ParsedTrack parsed = TrackParser.parse(trackFile, Track.MAX_CARS);
+        PositionVector first = parsed.carPositions().get(0);
+        List<List<PositionVector>> invalidPositions = List.of(
+            List.of(new PositionVector(parsed.width(), first.getY()), parsed.carPositions().get(1)),
+            List.of(new PositionVector(first.getX(), -1), parsed.carPositions().get(1)),
+            List.of(new PositionVector(0, 0), parsed.carPositions().get(1)),
+            List.of(first, first));
+        File compiledFile = CompiledTrackFile.compiledFileFor(trackFile);
+        for (List<PositionVector> positions: invalidPositions) {
+            TrackParser.ParsedTrack invalid = new TrackParser.ParsedTrack(parsed.width(), parsed.height(),
+                parsed.cells(), parsed.carIds(), positions, parsed.statistics());
+            try (OutputStream out = Files.newOutputStream(compiledFile.toPath())) {
+                CompiledTrackFile.write(invalid, trackFile.length(), trackFile.lastModified(), out);
+            }
+
+            assertThrows(InvalidFileFormatException.class, () -> new Track(compiledFile), positions.toString());
+            Track loaded = new Track(trackFile);
+            assertEquals(trackFile.length(), loaded.getParseStatistics().bytes(), "Text file should be parsed");
+        }
+    }
+
+    @Test
+    public void testTooManyCarsInCompiledFile() throws IOException, InvalidFileFormatException {
+        File compiledFile = CompiledTrackFile.compile(trackFile);
+        assertThrows(InvalidFileFormatException.class, () -> new Track(compiledFile, 1));
+    }
+}
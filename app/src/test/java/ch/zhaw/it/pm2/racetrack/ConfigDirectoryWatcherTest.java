@@ -0,0 +1,86 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigDirectoryWatcherTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private Config config;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        config = new Config();
+        config.setTrackDirectory(createDirectory("tracks"));
+        config.setMoveDirectory(createDirectory("moves"));
+        config.setFollowerDirectory(createDirectory("follower"));
+    }
+
+    private static File createDirectory(String name) throws IOException {
+        File directory = Files.createTempDirectory(name).toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static File writeFile(File directory, String name, String content) throws IOException {
+        File file = new File(directory, name);
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), content);
+        return file;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not reached in time");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testListenerIsNotifiedAboutChangedFile() throws IOException, InterruptedException {
+        BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+        try (ConfigDirectoryWatcher watcher = new ConfigDirectoryWatcher(config)) {
+            watcher.addListener((type, file, change) -> changes.add(type + " " + file.getName() + " " + change));
+            watcher.start();
+
+            writeFile(config.getMoveDirectory(), "moves.txt", "UP\n");
+
+            String change = changes.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertEquals("MOVES moves.txt CREATED", change);
+        }
+    }
+
+    @Test
+    public void testTrackReloaderUpdatesCacheAndCatalog() throws Exception {
+        File trackFile = writeFile(config.getTrackDirectory(), "track.txt", "#####\n#a >#\n#####\n");
+        new File(config.getTrackDirectory(), TrackCatalog.CATALOG_FILE_NAME).deleteOnExit();
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        TrackCatalog catalog = TrackCatalog.open(config.getTrackDirectory());
+        TrackLayout layout = cache.get(trackFile);
+
+        try (ConfigDirectoryWatcher watcher = new ConfigDirectoryWatcher(config)) {
+            watcher.addListener(ConfigDirectoryWatcher.trackReloader(cache, catalog));
+            watcher.start();
+
+            Files.writeString(trackFile.toPath(), "######\n#ab >#\n######\n");
+
+            // Writing the file may be reported as several modifications, each one parses the file again
+            awaitCondition(() -> cache.getStatistics().misses() >= 2 && catalog.getTracks().get(0).carCount() == 2);
+            TrackLayout reloaded = cache.get(trackFile);
+            assertNotSame(layout, reloaded);
+            assertEquals(2, reloaded.getCarCount());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiffRendererTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private Track track;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        track = new Track(new File(new Config().getTrackDirectory(), "challenge.txt"));
+    }
+
+    /*
+     * Return the output written since the last call.
+     */
+    private String takeOutput() {
+        String output = out.toString(StandardCharsets.UTF_8);
+        out.reset();
+        return output;
+    }
+
+    @Test
+    public void testChangeListContainsOnlyChangedCells() {
+        DiffRenderer renderer = new DiffRenderer(out, DiffRenderer.Mode.CHANGE_LIST);
+        Game game = new Game(track, renderer);
+
+        renderer.printStatus(track, 'a');
+        assertEquals(track + "Current turn: a\n", takeOutput());
+
+        game.doCarTurn(Direction.RIGHT);
+        renderer.printStatus(track, 'b');
+        assertEquals("Changed cells: (X:24, Y:22)=' ' (X:25, Y:22)='a'\nCurrent turn: b\n", takeOutput());
+
+        game.doCarTurn(Direction.NONE);
+        renderer.printStatus(track, 'a');
+        assertEquals("Changed cells:\nCurrent turn: a\n", takeOutput());
+    }
+
+    @Test
+    public void testAnsiDrawsChangedCellsInPlace() {
+        DiffRenderer renderer = new DiffRenderer(out, DiffRenderer.Mode.ANSI);
+        Game game = new Game(track, renderer);
+        int height = track.getHeight();
+
+        renderer.printStatus(track, 'a');
+        String firstFrame = takeOutput();
+        assertTrue(firstFrame.startsWith("\u001b[2J\u001b[H" + track));
+
+        game.doCarTurn(Direction.RIGHT);
+        renderer.printStatus(track, 'b');
+        assertEquals("\u001b[23;25H \u001b[23;26Ha\u001b[" + (height + 1) + ";1H\u001b[2KCurrent turn: b", takeOutput());
+
+        // Car a crashes into the wall with its next move
+        game.doCarTurn(Direction.NONE);
+        game.doCarTurn(Direction.UP);
+        String crashFrame = takeOutput();
+        assertEquals("\u001b[" + (height + 2) + ";1H\u001b[2KCar <a> crashed at position (X:26, Y:21): wall collision", crashFrame);
+
+        renderer.printWinner(track, 'b');
+        assertEquals("\u001b[23;26H" + Track.CRASH_INDICATOR + "\u001b[" + (height + 1) + ";1H\u001b[2KCar <b> wins the game!",
+            takeOutput());
+    }
+
+    @Test
+    public void testOtherTrackIsDrawnCompletely() throws Exception {
+        DiffRenderer renderer = new DiffRenderer(out, DiffRenderer.Mode.CHANGE_LIST);
+        renderer.printStatus(track, 'a');
+        takeOutput();
+
+        Track otherTrack = new Track(new File(new Config().getTrackDirectory(), "quarter-mile.txt"));
+        renderer.printStatus(otherTrack, 'a');
+        assertEquals(otherTrack + "Current turn: a\n", takeOutput());
+    }
+}
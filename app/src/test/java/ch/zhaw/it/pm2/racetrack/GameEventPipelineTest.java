@@ -0,0 +1,187 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameEventPipelineTest {
+
+    private static GameEvent event(GameEvent.Type type, int turn, int carIndex) {
+        return new GameEvent(type, turn, carIndex, (char) ('a' + carIndex), turn, 0, 0, 0, 1, null);
+    }
+
+    /*
+     * Handler collecting the events, which waits for the latch before handling its first batch.
+     */
+    private static GameEventPipeline.Handler collector(List<GameEvent> events, CountDownLatch latch) {
+        return batch -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.addAll(batch);
+        };
+    }
+
+    @Test
+    public void testGameEventsAreDelivered() throws Exception {
+        Track track = new Track(new File(new Config().getTrackDirectory(), "challenge.txt"));
+        Game game = new Game(track, NoOpRenderer.INSTANCE);
+        game.setCarMoveStrategy(0, () -> Direction.RIGHT);
+        game.setCarMoveStrategy(1, () -> Direction.NONE);
+        List<GameEvent> events = Collections.synchronizedList(new ArrayList<>());
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+        try (GameEventPipeline pipeline = new GameEventPipeline(4, GameEventPipeline.Backpressure.BLOCK)) {
+            pipeline.addHandler(events::addAll);
+            pipeline.addHandler(new GameEventLog(log));
+            pipeline.start();
+            game.setEventSink(pipeline);
+            game.playUntilFinished(100);
+        }
+
+        List<GameEvent.Type> types = events.stream().map(GameEvent::type).toList();
+        assertEquals(GameEvent.Type.TURN_STARTED, types.get(0));
+        assertEquals(GameEvent.Type.MOVED, types.get(1));
+        assertEquals(GameEvent.Type.CRASHED, types.get(types.size() - 2));
+        assertEquals(GameEvent.Type.WINNER, types.get(types.size() - 1));
+        GameEvent crash = events.get(events.size() - 2);
+        assertEquals('a', crash.carId());
+        assertEquals("wall collision", crash.detail());
+        assertEquals('b', events.get(events.size() - 1).carId());
+        assertEquals(game.getTurnCount(), events.get(events.size() - 1).turn());
+
+        String[] lines = log.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(events.size(), lines.length);
+        assertEquals("1\ta\tTURN_STARTED\t24\t22\t0\t0\t1\t", lines[0]);
+    }
+
+    @Test
+    public void testBlockDeliversAllEventsInOrder() {
+        List<GameEvent> events = new ArrayList<>();
+        try (GameEventPipeline pipeline = new GameEventPipeline(8, GameEventPipeline.Backpressure.BLOCK)) {
+            pipeline.addHandler(events::addAll);
+            pipeline.start();
+            for (int turn = 0; turn < 10_000; turn++) {
+                pipeline.publish(event(GameEvent.Type.MOVED, turn, 0));
+            }
+        }
+        assertEquals(10_000, events.size());
+        for (int turn = 0; turn < events.size(); turn++) {
+            assertEquals(turn, events.get(turn).turn());
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        List<GameEvent> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        GameEventPipeline pipeline = new GameEventPipeline(4, GameEventPipeline.Backpressure.DROP);
+        pipeline.addHandler(collector(events, latch));
+        pipeline.start();
+        for (int turn = 0; turn < 20; turn++) {
+            pipeline.publish(event(GameEvent.Type.MOVED, turn, 0));
+        }
+        latch.countDown();
+        pipeline.close();
+
+        GameEventPipeline.Statistics statistics = pipeline.getStatistics();
+        assertEquals(20, statistics.published() + statistics.dropped());
+        assertTrue(statistics.dropped() >= 20 - 2 * 4, "At most two buffers can be taken while the handler waits");
+        assertEquals(statistics.published(), events.size());
+    }
+
+    @Test
+    public void testCoalesceKeepsLatestPositionAndAllOtherEvents() {
+        List<GameEvent> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        GameEventPipeline pipeline = new GameEventPipeline(2, GameEventPipeline.Backpressure.COALESCE);
+        pipeline.addHandler(collector(events, latch));
+        pipeline.start();
+        for (int turn = 0; turn < 50; turn++) {
+            pipeline.publish(event(GameEvent.Type.MOVED, turn, turn % 2));
+        }
+        latch.countDown();
+        pipeline.publish(event(GameEvent.Type.CRASHED, 50, 0));
+        pipeline.close();
+
+        assertTrue(pipeline.getStatistics().coalesced() > 0);
+        assertEquals(51, events.size() + pipeline.getStatistics().coalesced());
+        assertEquals(GameEvent.Type.CRASHED, events.get(events.size() - 1).type());
+        // The latest moves of both cars are published before the crash
+        assertEquals(List.of(48, 49), events.subList(events.size() - 3, events.size() - 1).stream()
+            .map(GameEvent::turn).sorted().toList());
+    }
+
+    @Test
+    public void testFailingHandlerIsReportedOnClose() {
+        List<GameEvent> events = Collections.synchronizedList(new ArrayList<>());
+        GameEventPipeline pipeline = new GameEventPipeline(4, GameEventPipeline.Backpressure.BLOCK);
+        pipeline.addHandler(batch -> {
+            throw new IllegalArgumentException("handler failed");
+        });
+        pipeline.addHandler(events::addAll);
+        pipeline.start();
+        for (int turn = 0; turn < 10; turn++) {
+            pipeline.publish(event(GameEvent.Type.MOVED, turn, 0));
+        }
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, pipeline::close);
+        assertEquals("handler failed", failure.getCause().getMessage());
+        assertEquals(10, events.size(), "A failing handler must not stop the other handlers");
+        assertTrue(pipeline.getStatistics().failed() > 0);
+    }
+
+    @Test
+    public void testHandlerThrowingErrorDoesNotBlockGame() {
+        GameEventPipeline pipeline = new GameEventPipeline(4, GameEventPipeline.Backpressure.BLOCK);
+        pipeline.addHandler(batch -> {
+            throw new AssertionError("handler failed");
+        });
+        pipeline.start();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int turn = 0; turn < 100; turn++) {
+                pipeline.publish(event(GameEvent.Type.MOVED, turn, 0));
+            }
+        }, "The game must not wait for a handler which threw an error");
+        IllegalStateException failure = assertThrows(IllegalStateException.class, pipeline::close);
+        assertEquals("handler failed", failure.getCause().getMessage());
+    }
+
+    @Test
+    public void testRendererEventHandlerPrintsCrashAndWinner() throws Exception {
+        Track track = new Track(new File(new Config().getTrackDirectory(), "challenge.txt"));
+        Game game = new Game(track, NoOpRenderer.INSTANCE);
+        game.setCarMoveStrategy(0, () -> Direction.UP);
+        game.setCarMoveStrategy(1, () -> Direction.NONE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StdoutRenderer renderer = new StdoutRenderer(out);
+
+        try (GameEventPipeline pipeline = new GameEventPipeline()) {
+            pipeline.addHandler(new RendererEventHandler(renderer));
+            pipeline.start();
+            game.setEventSink(pipeline);
+            game.playUntilFinished(100);
+        }
+        renderer.finish();
+
+        assertEquals("Car <a> crashed at position (X:24, Y:21): wall collision" + System.lineSeparator()
+            + "Car <b> wins the game!" + System.lineSeparator(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new GameEventPipeline(3, GameEventPipeline.Backpressure.BLOCK));
+    }
+}
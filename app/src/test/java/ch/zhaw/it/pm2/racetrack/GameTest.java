@@ -6,10 +6,17 @@ import org.junit.jupiter.api.Test;
 
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class GameTest {
@@ -274,4 +281,199 @@ public class GameTest {
         List<PositionVector> positions = game.calculatePath(new PositionVector(1, 1), new PositionVector(3, 3));
         assertEquals(expectedPositions, positions);
     }
+
+    /**
+     * Test that the path traversal visits the same positions as the calculated path.
+     */
+    @Test
+    void testTraversePathMatchesCalculatePath() {
+        List<PositionVector> visited = new ArrayList<>();
+        boolean stopped = Game.traversePath(2, 7, -3, 4, (x, y) -> {
+            visited.add(new PositionVector(x, y));
+            return false;
+        });
+
+        assertFalse(stopped, "The traversal should reach the ending position");
+        assertEquals(game.calculatePath(new PositionVector(2, 7), new PositionVector(-3, 4)), visited);
+    }
+
+    /**
+     * Test that the path traversal stops at the first position the visitor rejects.
+     */
+    @Test
+    void testTraversePathStopsEarly() {
+        List<PositionVector> visited = new ArrayList<>();
+        boolean stopped = Game.traversePath(1, 1, 5, 1, (x, y) -> {
+            visited.add(new PositionVector(x, y));
+            return x == 3;
+        });
+
+        assertTrue(stopped, "The traversal should be stopped by the visitor");
+        assertEquals(List.of(new PositionVector(1, 1), new PositionVector(2, 1), new PositionVector(3, 1)), visited);
+    }
+
+    /**
+     * Test that the cached path templates contain the same positions as the calculated paths.
+     */
+    @Test
+    void testPathTemplatesMatchCalculatePath() {
+        PathTemplateCache cache = new PathTemplateCache(6);
+        PositionVector start = new PositionVector(10, 20);
+        for (int dy = -7; dy <= 7; dy++) {
+            for (int dx = -7; dx <= 7; dx++) {
+                List<PositionVector> visited = new ArrayList<>();
+                cache.traverse(start.getX(), start.getY(), dx, dy, (x, y) -> {
+                    visited.add(new PositionVector(x, y));
+                    return false;
+                });
+                assertEquals(game.calculatePath(start, start.add(new PositionVector(dx, dy))), visited,
+                    "Path with velocity (" + dx + ", " + dy + ")");
+            }
+        }
+    }
+
+    /**
+     * Test that a template cache is only created for speeds up to its limit.
+     */
+    @Test
+    void testPathTemplateCacheRejectsInvalidMaxSpeed() {
+        assertThrows(IllegalArgumentException.class, () -> new PathTemplateCache(-1));
+        assertThrows(IllegalArgumentException.class, () -> new PathTemplateCache(PathTemplateCache.MAX_SPEED + 1));
+        assertThrows(IllegalArgumentException.class, () -> new PathTemplateCache(30_000));
+    }
+
+    /**
+     * Test that restoring a snapshot undoes the turns made after it, including crashes.
+     */
+    @Test
+    void testRestoreSnapshot() {
+        Game whatIf = new Game(track, NoOpRenderer.INSTANCE);
+        whatIf.doCarTurn(Direction.NONE);
+        int[] snapshot = whatIf.snapshot();
+        assertEquals(whatIf.getSnapshotSize(), snapshot.length);
+
+        // Car b drives upwards into car a, so car a wins
+        whatIf.doCarTurn(Direction.UP);
+        whatIf.doCarTurn(Direction.NONE);
+        whatIf.doCarTurn(Direction.NONE);
+        assertTrue(track.getCar(1).isCrashed());
+        assertEquals(0, whatIf.getWinner());
+        assertEquals(4, whatIf.getTurnCount());
+
+        whatIf.restore(snapshot);
+        assertEquals(1, whatIf.getCurrentCarIndex());
+        assertEquals(Game.NO_WINNER, whatIf.getWinner());
+        assertEquals(1, whatIf.getTurnCount());
+        assertFalse(track.getCar(1).isCrashed());
+        assertEquals(new PositionVector(24, 22), game.getCarPosition(0));
+        assertEquals(new PositionVector(24, 24), game.getCarPosition(1));
+        assertEquals(new PositionVector(0, 0), game.getCarVelocity(1));
+        assertEquals(1, track.getCarIndexAt(24, 24));
+        assertEquals(-1, track.getCarIndexAt(24, 23));
+
+        int[] restored = new int[snapshot.length];
+        whatIf.snapshot(restored);
+        assertArrayEquals(snapshot, restored);
+    }
+
+    /**
+     * Test that restoring a snapshot of a running race resumes a race which has ended, including its stall detection.
+     */
+    @Test
+    void testRestoreEndedRace() {
+        Game headless = new Game(new Track(track.getLayout()), NoOpRenderer.INSTANCE);
+        headless.setStallLimit(5);
+        headless.setCarMoveStrategy(0, () -> Direction.NONE);
+        headless.setCarMoveStrategy(1, () -> Direction.NONE);
+        int[] snapshot = headless.snapshot();
+
+        headless.playUntilFinished(1000);
+        assertEquals(RaceOutcome.STALLED, headless.getOutcome());
+        int stalledTurns = headless.getTurnCount();
+
+        headless.restore(snapshot);
+        assertEquals(RaceOutcome.RUNNING, headless.getOutcome());
+        assertNull(headless.getOutcomeReason());
+        headless.playUntilFinished(1000);
+        assertEquals(RaceOutcome.STALLED, headless.getOutcome());
+        assertEquals(stalledTurns, headless.getTurnCount());
+        assertEquals(new PositionVector(24, 22), game.getCarPosition(0), "The cars of the race must not change");
+    }
+
+    /**
+     * Test that a snapshot buffer which is too small is rejected.
+     */
+    @Test
+    void testSnapshotBufferTooSmall() {
+        assertThrows(IllegalArgumentException.class, () -> game.snapshot(new int[Game.SNAPSHOT_HEADER_SIZE]));
+        assertThrows(IllegalArgumentException.class, () -> game.restore(new int[0]));
+    }
+
+    /**
+     * Test that a car waiting for fewer turns than the stall limit does not stall the race.
+     */
+    @Test
+    void testWaitingCarDoesNotStallRace() {
+        Game headless = new Game(track, NoOpRenderer.INSTANCE);
+        headless.setStallLimit(20);
+        int[] turn = {0};
+        headless.setCarMoveStrategy(0, () -> turn[0]++ < 8 ? Direction.NONE : Direction.UP);
+        headless.setCarMoveStrategy(1, () -> Direction.NONE);
+
+        headless.playUntilFinished(1000);
+
+        assertEquals(RaceOutcome.WON, headless.getOutcome());
+        assertEquals(1, headless.getWinner());
+        assertEquals("Car <b> won the race", headless.getOutcomeReason());
+    }
+
+    /**
+     * Test that the race ends without a winner, when the only car crashes.
+     */
+    @Test
+    void testRaceEndsWhenAllCarsCrashed() throws Exception {
+        File trackFile = File.createTempFile("one-car", ".txt");
+        trackFile.deleteOnExit();
+        Files.writeString(trackFile.toPath(), "#####\n#a >#\n#####\n");
+        Track oneCarTrack = new Track(trackFile);
+        Game headless = new Game(oneCarTrack, NoOpRenderer.INSTANCE);
+        headless.setCarMoveStrategy(0, () -> Direction.LEFT);
+
+        assertEquals(1, headless.playUntilFinished(100));
+
+        assertTrue(oneCarTrack.getCar(0).isCrashed());
+        assertEquals(Game.NO_WINNER, headless.getWinner());
+        assertEquals(RaceOutcome.ALL_CRASHED, headless.getOutcome());
+        assertEquals("All cars crashed", headless.getOutcomeReason());
+    }
+
+    /**
+     * Test that a strategy returning no move aborts the race.
+     */
+    @Test
+    void testStrategyEndsRace() {
+        Game headless = new Game(track, NoOpRenderer.INSTANCE);
+        headless.setCarMoveStrategy(0, () -> Direction.NONE);
+        headless.setCarMoveStrategy(1, () -> null);
+
+        assertEquals(RaceOutcome.RUNNING, headless.getOutcome());
+        assertEquals(1, headless.playUntilFinished(1000));
+        assertEquals(RaceOutcome.ABORTED, headless.getOutcome());
+        assertEquals("The move strategy of car <b> ended the race", headless.getOutcomeReason());
+    }
+
+    /**
+     * Test that the state hash only depends on the race state.
+     */
+    @Test
+    void testStateHash() {
+        long initial = game.getStateHash();
+        game.doCarTurn(Direction.NONE);
+        assertNotEquals(initial, game.getStateHash(), "The current car is part of the state");
+        game.doCarTurn(Direction.NONE);
+        assertEquals(initial, game.getStateHash());
+        game.doCarTurn(Direction.RIGHT);
+        game.doCarTurn(Direction.NONE);
+        assertNotEquals(initial, game.getStateHash());
+    }
 }
@@ -0,0 +1,64 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+
+        assertEquals(3, set.size());
+        assertTrue(set.contains(42));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertFalse(set.contains(43));
+    }
+
+    @Test
+    public void testSameAsHashSet() {
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // Small packed states, so many values are added twice
+            long value = PackedState.state(random.nextInt(100), random.nextInt(50), random.nextInt(9) - 4, random.nextInt(9) - 4);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < 10_000; i++) {
+            long value = PackedState.state(random.nextInt(200), random.nextInt(100), random.nextInt(9) - 4, random.nextInt(9) - 4);
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        LongHashSet set = new LongHashSet();
+        for (long value = 0; value < 100; value++) {
+            set.add(value);
+        }
+        set.clear();
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(50));
+        assertTrue(set.add(50));
+    }
+
+    @Test
+    public void testNegativeExpectedSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LongHashSet(-1));
+    }
+}
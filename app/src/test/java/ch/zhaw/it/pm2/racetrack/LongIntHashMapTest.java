@@ -0,0 +1,48 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(7, 1);
+        map.put(0, 2);
+        map.put(7, 3);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.get(7, -1));
+        assertEquals(2, map.get(0, -1));
+        assertEquals(-1, map.get(8, -1));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(8));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(7, -1));
+        assertEquals(-1, map.get(0, -1));
+    }
+
+    @Test
+    public void testSameAsHashMap() {
+        LongIntHashMap map = new LongIntHashMap(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            long key = PackedState.state(random.nextInt(100), random.nextInt(50), random.nextInt(9) - 4, random.nextInt(9) - 4);
+            map.put(key, i);
+            expected.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry: expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), map.get(entry.getKey(), -1));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedStateTest {
+
+    private static final int[] VALUES = {0, 1, -1, 5, -5, 63, 1000, Short.MAX_VALUE, Short.MIN_VALUE};
+
+    @Test
+    public void testPositionRoundTrip() {
+        for (int x: VALUES) {
+            for (int y: VALUES) {
+                int position = PackedState.position(x, y);
+                assertEquals(x, PackedState.positionX(position));
+                assertEquals(y, PackedState.positionY(position));
+            }
+        }
+        assertEquals(PackedState.position(3, 4), PackedState.position(new PositionVector(3, 4)));
+    }
+
+    @Test
+    public void testStateRoundTrip() {
+        for (int x: VALUES) {
+            for (int y: VALUES) {
+                for (int v: VALUES) {
+                    long state = PackedState.state(x, y, v, -y);
+                    assertEquals(x, PackedState.stateX(state));
+                    assertEquals(y, PackedState.stateY(state));
+                    assertEquals(v, PackedState.stateVelocityX(state));
+                    assertEquals((short) -y, PackedState.stateVelocityY(state));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDifferentStatesHaveDifferentCodes() {
+        assertNotEquals(PackedState.state(1, 2, 3, 4), PackedState.state(2, 1, 3, 4));
+        assertNotEquals(PackedState.state(1, 2, 3, 4), PackedState.state(1, 2, 4, 3));
+        assertNotEquals(PackedState.state(1, 2, 0, -1), PackedState.state(1, 2, -1, 0));
+        assertNotEquals(PackedState.state(1, 2, 3, 4), PackedState.state(3, 4, 1, 2));
+    }
+}
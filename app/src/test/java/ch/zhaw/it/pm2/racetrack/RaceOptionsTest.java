@@ -0,0 +1,81 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.strategy.MoveStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RaceOptionsTest {
+
+    private final Config config = new Config();
+
+    @Test
+    public void testParseAllOptions() {
+        RaceOptions options = RaceOptions.parse(new String[]{"--track", "challenge", "--strategy", "do-not-move",
+            "--strategy", "a=move_list", "--strategy-file", "a=moves.txt", "--repeat", "5", "--parallel", "2",
+            "--turn-limit", "100", "--format", "json"}, config);
+
+        assertEquals(new File(config.getTrackDirectory(), "challenge.txt"), options.trackFile());
+        assertEquals(MoveStrategy.StrategyType.MOVE_LIST, options.strategyOf('a'));
+        assertEquals(MoveStrategy.StrategyType.DO_NOT_MOVE, options.strategyOf('b'));
+        assertEquals(new File("moves.txt"), options.strategyFiles().get('a'));
+        assertEquals(5, options.repetitions());
+        assertEquals(2, options.parallelism());
+        assertEquals(100, options.turnLimit());
+        assertEquals(ResultFormat.JSON, options.format());
+    }
+
+    @Test
+    public void testDefaults() {
+        RaceOptions options = RaceOptions.parse(new String[]{"--track", "challenge.txt"}, config);
+
+        assertEquals(RaceOptions.DEFAULT_STRATEGY, options.strategyOf('a'));
+        assertEquals(1, options.repetitions());
+        assertEquals(Simulator.DEFAULT_TURN_LIMIT, options.turnLimit());
+        assertEquals(ResultFormat.TEXT, options.format());
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> RaceOptions.parse(new String[]{}, config));
+        assertThrows(IllegalArgumentException.class,
+            () -> RaceOptions.parse(new String[]{"--track", "no-such-track"}, config));
+        assertThrows(IllegalArgumentException.class,
+            () -> RaceOptions.parse(new String[]{"--track", "challenge", "--repeat"}, config));
+        assertThrows(IllegalArgumentException.class,
+            () -> RaceOptions.parse(new String[]{"--track", "challenge", "--repeat", "0"}, config));
+        assertThrows(IllegalArgumentException.class,
+            () -> RaceOptions.parse(new String[]{"--track", "challenge", "--strategy", "user"}, config));
+        assertThrows(IllegalArgumentException.class,
+            () -> RaceOptions.parse(new String[]{"--track", "challenge", "--format", "xml"}, config));
+        assertThrows(IllegalArgumentException.class,
+            () -> RaceOptions.parse(new String[]{"--track", "challenge", "--speed", "1"}, config));
+    }
+
+    /**
+     * Test that the strategies are checked against the cars of the track before any race is run.
+     */
+    @Test
+    public void testStrategyOfUnknownCar() throws Exception {
+        TrackLayout layout = new TrackLayout(new File(config.getTrackDirectory(), "challenge.txt"));
+        RaceOptions unknownCar = RaceOptions.parse(new String[]{"--track", "challenge", "--strategy", "x=path-finder"},
+            config);
+        RaceOptions missingFile = RaceOptions.parse(new String[]{"--track", "challenge", "--strategy", "a=move-list",
+            "--strategy-file", "a=no-such-file.txt"}, config);
+
+        assertThrows(IllegalArgumentException.class, () -> unknownCar.createStrategyFactory(layout, config));
+        assertThrows(IllegalArgumentException.class, () -> missingFile.createStrategyFactory(layout, config));
+    }
+
+    @Test
+    public void testDefaultStrategyFile() {
+        File trackFile = new File(config.getTrackDirectory(), "challenge.txt");
+
+        assertEquals(new File(config.getMoveDirectory(), "challenge-car-b.txt"),
+            RaceOptions.defaultStrategyFile(config, MoveStrategy.StrategyType.MOVE_LIST, trackFile, 'b'));
+        assertTrue(RaceOptions.defaultStrategyFile(config, MoveStrategy.StrategyType.PATH_FOLLOWER, trackFile, 'a')
+            .isFile());
+    }
+}
@@ -0,0 +1,88 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RacetrackTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) {
+        return Racetrack.runCommandLine(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    /*
+     * Return the arguments of races where car a crashes into the wall in its first turn, so car b wins.
+     */
+    private String[] crashingCarA(String format) throws Exception {
+        File moves = File.createTempFile("moves", ".txt");
+        moves.deleteOnExit();
+        Files.writeString(moves.toPath(), "UP\n");
+        return new String[]{"--track", "challenge", "--strategy", "do-not-move", "--strategy", "a=move-list",
+            "--strategy-file", "a=" + moves.getPath(), "--repeat", "3", "--parallel", "2", "--format", format};
+    }
+
+    @Test
+    public void testCsvOutput() throws Exception {
+        assertEquals(0, run(crashingCarA("csv")));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\\R");
+        assertEquals(4, lines.length);
+        assertEquals("race,outcome,winner,turns,crashes,reason", lines[0]);
+        assertEquals("0,WON,b,1,1,Car <b> won the race", lines[1]);
+        assertEquals("2,WON,b,1,1,Car <b> won the race", lines[3]);
+    }
+
+    @Test
+    public void testCsvQuotesWinnerId() {
+        RaceResult result = new RaceResult(0, 0, ',', 5, 0, RaceOutcome.WON, "Car <,> won the race");
+        ResultFormat.CSV.write("track.txt", List.of(result), new PrintStream(out, true, StandardCharsets.UTF_8));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\\R");
+        assertEquals("0,WON,\",\",5,0,\"Car <,> won the race\"", lines[1]);
+    }
+
+    @Test
+    public void testJsonOutput() throws Exception {
+        assertEquals(0, run(crashingCarA("json")));
+
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"track\": \"challenge.txt\", \"races\": ["), json);
+        assertTrue(json.contains("{\"race\": 1, \"outcome\": \"WON\", \"winner\": \"b\", \"turns\": 1, \"crashes\": 1,"
+            + " \"reason\": \"Car <b> won the race\"},"), json);
+        assertTrue(json.strip().endsWith("]}"), json);
+    }
+
+    @Test
+    public void testTextOutput() throws Exception {
+        assertEquals(0, run(crashingCarA("text")));
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("Race 0: car <b> won after 1 turns, 1 crashes"), text);
+        assertTrue(text.contains("3 races on challenge.txt: car <b> won 3, 0 without winner"), text);
+    }
+
+    @Test
+    public void testInvalidOptionsAreReported() {
+        assertEquals(Racetrack.EXIT_USAGE, run("--track", "challenge", "--repeat", "many"));
+
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+        assertTrue(err.toString(StandardCharsets.UTF_8).startsWith("Value of option --repeat must be a positive number"));
+    }
+
+    @Test
+    public void testHelp() {
+        assertEquals(0, run("--help"));
+        assertEquals(RaceOptions.USAGE, out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayTest {
+
+    private static final int TURNS = 300;
+    private static final int SEEDS = 20;
+    private static final int KEYFRAME_INTERVAL = 8;
+
+    private final File trackFile = new File(new Config().getTrackDirectory(), "challenge.txt");
+
+    /*
+     * Record a race with random moves and return the snapshot of the game before the first and after every turn.
+     */
+    private static List<int[]> recordRace(TrackLayout layout, long seed, File replayFile) throws IOException {
+        Track track = new Track(layout);
+        Game game = new Game(track, NoOpRenderer.INSTANCE);
+        Random random = new Random(seed);
+        List<int[]> states = new ArrayList<>();
+        states.add(game.snapshot());
+        try (ReplayRecorder recorder = new ReplayRecorder(replayFile, game, KEYFRAME_INTERVAL)) {
+            game.setEventSink(recorder);
+            for (int turn = 0; turn < TURNS && game.getWinner() == Game.NO_WINNER; turn++) {
+                game.doCarTurn(randomMove(track, game.getCurrentCarIndex(), random));
+                states.add(game.snapshot());
+            }
+        }
+        return states;
+    }
+
+    /*
+     * Return a random move of at most one cell, which usually does not hit a wall, so the races are long.
+     * A moving car brakes, a standing car accelerates in a random direction.
+     */
+    private static Direction randomMove(Track track, int carIndex, Random random) {
+        Car car = track.getCar(carIndex);
+        PositionVector velocity = car.getVelocity();
+        Direction[] directions = Direction.values();
+        if (velocity.getX() != 0 || velocity.getY() != 0) {
+            for (Direction direction: directions) {
+                if (direction.vector.getX() == -velocity.getX() && direction.vector.getY() == -velocity.getY()) {
+                    return direction;
+                }
+            }
+        }
+        Direction direction = directions[random.nextInt(directions.length)];
+        PositionVector target = car.getPosition().add(direction.vector);
+        if (track.spaceTypeAt(target.getX(), target.getY()) == SpaceType.WALL && random.nextInt(20) != 0) {
+            return Direction.NONE;
+        }
+        return direction;
+    }
+
+    @Test
+    public void testSeekRestoresRecordedStates() throws Exception {
+        TrackLayout layout = new TrackLayout(trackFile);
+        File replayFile = File.createTempFile("race", ".replay");
+        replayFile.deleteOnExit();
+        for (long seed = 0; seed < SEEDS; seed++) {
+            List<int[]> states = recordRace(layout, seed, replayFile);
+            ReplayPlayer player = new ReplayPlayer(replayFile, layout);
+            assertEquals(0, player.getFirstTurn());
+            assertEquals(states.size() - 1, player.getLastTurn());
+
+            Random random = new Random(seed);
+            for (int i = 0; i < 50; i++) {
+                int turn = random.nextInt(states.size());
+                player.seek(turn);
+                assertEquals(turn, player.getTurn());
+                assertArrayEquals(states.get(turn), player.getGame().snapshot(), "seed " + seed + ", turn " + turn);
+            }
+        }
+    }
+
+    @Test
+    public void testStepPlaysAllTurns() throws Exception {
+        TrackLayout layout = new TrackLayout(trackFile);
+        File replayFile = File.createTempFile("race", ".replay");
+        replayFile.deleteOnExit();
+        List<int[]> states = recordRace(layout, 7, replayFile);
+        ReplayPlayer player = new ReplayPlayer(replayFile, layout);
+
+        assertArrayEquals(states.get(0), player.getGame().snapshot());
+        for (int turn = 1; turn < states.size(); turn++) {
+            assertTrue(player.step());
+            assertArrayEquals(states.get(turn), player.getGame().snapshot(), "turn " + turn);
+        }
+        assertFalse(player.step());
+        assertEquals((states.size() - 2) / KEYFRAME_INTERVAL + 1, player.getKeyframeCount());
+    }
+
+    /**
+     * Test that a recording which was not closed can be played up to its last complete turn.
+     */
+    @Test
+    public void testRecordingWithoutFooter() throws Exception {
+        TrackLayout layout = new TrackLayout(trackFile);
+        File replayFile = File.createTempFile("race", ".replay");
+        replayFile.deleteOnExit();
+        List<int[]> states = recordRace(layout, 3, replayFile);
+        try (RandomAccessFile file = new RandomAccessFile(replayFile, "rw")) {
+            file.seek(file.length() - ReplayRecorder.TRAILER_SIZE);
+            long footerOffset = file.readLong();
+            // Cut the footer and the last byte of the last turn
+            file.setLength(footerOffset - 1);
+        }
+        ReplayPlayer player = new ReplayPlayer(replayFile, layout);
+
+        int lastTurn = states.size() - 2;
+        assertEquals(lastTurn, player.getLastTurn());
+        player.seek(lastTurn);
+        assertArrayEquals(states.get(lastTurn), player.getGame().snapshot());
+        player.seek(1);
+        assertArrayEquals(states.get(1), player.getGame().snapshot());
+    }
+
+    @Test
+    public void testReplayOfAnotherTrack() throws Exception {
+        File replayFile = File.createTempFile("race", ".replay");
+        replayFile.deleteOnExit();
+        recordRace(new TrackLayout(trackFile), 0, replayFile);
+        TrackLayout otherLayout = new TrackLayout(new File(new Config().getTrackDirectory(), "quarter-mile.txt"));
+
+        assertThrows(InvalidFileFormatException.class, () -> new ReplayPlayer(replayFile, otherLayout));
+    }
+
+    @Test
+    public void testNotAReplayFile() throws Exception {
+        File replayFile = File.createTempFile("race", ".replay");
+        replayFile.deleteOnExit();
+        Files.writeString(replayFile.toPath(), "not a replay");
+
+        assertThrows(InvalidFileFormatException.class, () -> new ReplayPlayer(replayFile, new TrackLayout(trackFile)));
+    }
+}
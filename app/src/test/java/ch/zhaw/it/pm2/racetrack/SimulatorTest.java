@@ -0,0 +1,70 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulatorTest {
+
+    private final File trackFile = new File(new Config().getTrackDirectory(), "challenge.txt");
+
+    /**
+     * Test that all races of a batch are played and return the expected result.
+     * Car a crashes into the wall in its first turn, so car b wins every race.
+     */
+    @Test
+    void testBatchReturnsResultOfEveryRace() throws Exception {
+        try (Simulator simulator = new Simulator(4, 100)) {
+            List<RaceResult> results = simulator.runBatch(trackFile,
+                (car, track) -> () -> car.getId() == 'a' ? Direction.UP : Direction.NONE, 16);
+
+            assertEquals(16, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                RaceResult result = results.get(i);
+                assertEquals(i, result.raceNumber(), "Results should be ordered by race number");
+                assertTrue(result.hasWinner());
+                assertEquals('b', result.winnerId());
+                assertEquals(1, result.turns());
+                assertEquals(1, result.crashes());
+                assertEquals(RaceOutcome.WON, result.outcome());
+            }
+        }
+    }
+
+    /**
+     * Test that a race where no car moves is stopped at the turn limit.
+     */
+    @Test
+    void testRaceStopsAtTurnLimit() throws Exception {
+        try (Simulator simulator = new Simulator(1, 50)) {
+            RaceResult result = simulator.runRace(0, trackFile, (car, track) -> () -> Direction.NONE);
+
+            assertFalse(result.hasWinner());
+            assertEquals(RaceResult.NO_WINNER_ID, result.winnerId());
+            assertEquals(50, result.turns());
+            assertEquals(0, result.crashes());
+            assertEquals(RaceOutcome.TURN_LIMIT, result.outcome());
+        }
+    }
+
+    /**
+     * Test that a race where no car moves is stopped at the stall limit, long before the turn limit.
+     * The two race states (car a or b to move) are new in the first two turns.
+     */
+    @Test
+    void testRaceStopsAtStallLimit() throws Exception {
+        try (Simulator simulator = new Simulator(1, 10_000, 20)) {
+            RaceResult result = simulator.runRace(0, trackFile, (car, track) -> () -> Direction.NONE);
+
+            assertFalse(result.hasWinner());
+            assertEquals(RaceOutcome.STALLED, result.outcome());
+            assertEquals(21, result.turns());
+            assertEquals("No progress in the last 20 turns", result.reason());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import ch.zhaw.it.pm2.racetrack.strategy.DoNotMoveStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StdoutRendererTest {
+
+    private final File trackFile = new File(new Config().getTrackDirectory(), "challenge.txt");
+
+    @Test
+    public void testGameIsPrintedWhenFinished() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StdoutRenderer renderer = new StdoutRenderer(out);
+        Track track = new Track(trackFile);
+        Game game = new Game(track, renderer);
+        game.setCarMoveStrategy(0, () -> Direction.UP);
+        game.setCarMoveStrategy(1, new DoNotMoveStrategy(renderer));
+
+        game.startGame();
+
+        String output = out.toString(StandardCharsets.UTF_8);
+        assertTrue(output.startsWith("Game status:"));
+        assertTrue(output.contains("Current turn: a"));
+        assertTrue(output.contains("Car <a> crashed at position (X:24, Y:21): wall collision"));
+        assertTrue(output.endsWith("Car <b> wins the game!" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testOutputIsBuffered() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StdoutRenderer renderer = new StdoutRenderer(out);
+
+        renderer.printMessage("message");
+        assertEquals(0, out.size());
+
+        renderer.flush();
+        assertEquals("message" + System.lineSeparator(), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testStalledGameIsPrinted() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Game game = new Game(new Track(trackFile), new StdoutRenderer(out));
+        game.setStallLimit(10);
+        game.setCarMoveStrategy(0, new DoNotMoveStrategy(NoOpRenderer.INSTANCE));
+        game.setCarMoveStrategy(1, new DoNotMoveStrategy(NoOpRenderer.INSTANCE));
+
+        game.startGame();
+
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("The race ended without a winner: No progress in the last 10 turns"));
+    }
+}
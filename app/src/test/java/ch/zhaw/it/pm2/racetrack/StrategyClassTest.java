@@ -4,13 +4,17 @@ package ch.zhaw.it.pm2.racetrack;
 import ch.zhaw.it.pm2.racetrack.strategy.DoNotMoveStrategy;
 import ch.zhaw.it.pm2.racetrack.strategy.MoveListStrategy;
 import ch.zhaw.it.pm2.racetrack.strategy.PathFollowerMoveStrategy;
+import ch.zhaw.it.pm2.racetrack.strategy.ShortestPathMoveStrategy;
 import ch.zhaw.it.pm2.racetrack.strategy.UserMoveStrategy;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StrategyClassTest {
         @Test
@@ -60,6 +64,48 @@ public class StrategyClassTest {
 
         }
 
+        @Test
+        public void testShortestPathMoveStrategyWinsInFewestTurns() throws Exception {
+            Config CFG = new Config();
+            Track track = new Track(new File(CFG.getTrackDirectory(), "challenge.txt"));
+            Game game = new Game(track, NoOpRenderer.INSTANCE);
+            ShortestPathMoveStrategy strategy = new ShortestPathMoveStrategy(track.getCar(0), track);
+            game.setCarMoveStrategy(0, strategy);
+            game.setCarMoveStrategy(1, () -> Direction.NONE);
+
+            game.playUntilFinished(1000);
+
+            assertTrue(strategy.getLastSearchStatistics().pathFound());
+            assertEquals(29, strategy.getLastSearchStatistics().turns(), "The shortest route takes 29 turns");
+            assertEquals(0, game.getWinner());
+        }
+
+        @Test
+        public void testShortestPathMoveStrategyRespectsStateBudget() throws Exception {
+            Config CFG = new Config();
+            Track track = new Track(new File(CFG.getTrackDirectory(), "challenge.txt"));
+            ShortestPathMoveStrategy strategy = new ShortestPathMoveStrategy(track.getCar(0), track, 10);
+
+            assertEquals(Direction.NONE, strategy.nextMove(), "The car does not move without a route");
+            assertEquals(10, strategy.getLastSearchStatistics().expandedStates());
+        }
+
+        @Test
+        public void testShortestPathMoveStrategySearchesOnceWithoutRoute() throws Exception {
+            Config CFG = new Config();
+            Track track = new Track(new File(CFG.getTrackDirectory(), "challenge.txt"));
+            ShortestPathMoveStrategy strategy = new ShortestPathMoveStrategy(track.getCar(0), track, 10);
+
+            assertEquals(Direction.NONE, strategy.nextMove());
+            ShortestPathMoveStrategy.SearchStatistics statistics = strategy.getLastSearchStatistics();
+            assertEquals(Direction.NONE, strategy.nextMove());
+            assertSame(statistics, strategy.getLastSearchStatistics(), "The unchanged car is not searched again");
+
+            track.getCar(0).accelerate(Direction.UP);
+            assertEquals(Direction.NONE, strategy.nextMove());
+            assertNotSame(statistics, strategy.getLastSearchStatistics(), "The changed car is searched again");
+        }
+
 
 
     }
@@ -0,0 +1,147 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackCacheTest {
+
+    private static final String TRACK = "#####\n#a >#\n#####\n";
+
+    private File directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("track-cache").toFile();
+        directory.deleteOnExit();
+    }
+
+    private File writeTrack(String name, String content) throws IOException {
+        File trackFile = new File(directory, name);
+        trackFile.deleteOnExit();
+        Files.writeString(trackFile.toPath(), content);
+        return trackFile;
+    }
+
+    @Test
+    public void testRepeatedLookupIsHit() throws IOException, InvalidFileFormatException {
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        File trackFile = writeTrack("track.txt", TRACK);
+
+        TrackLayout layout = cache.get(trackFile);
+        assertSame(layout, cache.get(trackFile));
+        assertSame(layout, cache.get(new File(directory, "./track.txt")), "Paths should be canonicalized");
+
+        TrackCache.CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.misses());
+        assertEquals(2, statistics.hits());
+        assertEquals(1, statistics.entries());
+    }
+
+    @Test
+    public void testCompiledTrackFiles() throws IOException, InvalidFileFormatException {
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        File trackFile = writeTrack("track.txt", TRACK);
+        File compiledFile = CompiledTrackFile.compile(trackFile);
+        compiledFile.deleteOnExit();
+
+        TrackLayout compiled = cache.get(compiledFile);
+        assertEquals(compiledFile.length(), compiled.getParseStatistics().bytes());
+        TrackLayout withSibling = cache.get(trackFile);
+        assertEquals(compiledFile.length(), withSibling.getParseStatistics().bytes(),
+            "The up to date compiled file should be loaded");
+        assertEquals(new Track(trackFile).toString(), new Track(withSibling).toString());
+        assertEquals(new Track(compiled).toString(), new Track(withSibling).toString());
+        assertEquals(2, cache.getStatistics().misses());
+    }
+
+    @Test
+    public void testRewrittenCompiledFileIsReloaded() throws IOException, InvalidFileFormatException {
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        File trackFile = writeTrack("track.txt", TRACK);
+        TrackLayout parsed = cache.get(trackFile);
+        assertEquals(trackFile.length(), parsed.getParseStatistics().bytes());
+
+        File compiledFile = CompiledTrackFile.compile(trackFile);
+        compiledFile.deleteOnExit();
+        TrackLayout compiled = cache.get(trackFile);
+        assertNotSame(parsed, compiled);
+        assertEquals(compiledFile.length(), compiled.getParseStatistics().bytes(),
+            "The new compiled file should be loaded");
+        assertSame(compiled, cache.get(trackFile));
+
+        CompiledTrackFile.compile(trackFile);
+        assertTrue(compiledFile.setLastModified(compiledFile.lastModified() + 10_000));
+        assertNotSame(compiled, cache.get(trackFile), "The rewritten compiled file should be loaded");
+        assertEquals(3, cache.getStatistics().misses());
+        assertEquals(1, cache.getStatistics().hits());
+    }
+
+    @Test
+    public void testTouchedFileWithSameContentIsHit() throws IOException, InvalidFileFormatException {
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        File trackFile = writeTrack("track.txt", TRACK);
+        TrackLayout layout = cache.get(trackFile);
+
+        assertTrue(trackFile.setLastModified(trackFile.lastModified() + 10_000));
+        assertSame(layout, cache.get(trackFile));
+        assertEquals(1, cache.getStatistics().misses());
+        assertEquals(1, cache.getStatistics().hits());
+    }
+
+    @Test
+    public void testChangedFileIsReloaded() throws IOException, InvalidFileFormatException {
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        File trackFile = writeTrack("track.txt", TRACK);
+        TrackLayout layout = cache.get(trackFile);
+
+        Files.writeString(trackFile.toPath(), "######\n#ab >#\n######\n");
+        assertTrue(trackFile.setLastModified(trackFile.lastModified() + 10_000));
+        TrackLayout changed = cache.get(trackFile);
+
+        assertNotSame(layout, changed);
+        assertEquals(2, changed.getCarCount());
+        assertEquals(2, cache.getStatistics().misses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException, InvalidFileFormatException {
+        File first = writeTrack("first.txt", TRACK);
+        File second = writeTrack("second.txt", TRACK);
+        File third = writeTrack("third.txt", TRACK);
+        TrackCache probe = new TrackCache(Long.MAX_VALUE);
+        probe.get(first);
+        long layoutSize = probe.getStatistics().size();
+
+        TrackCache cache = new TrackCache(2 * layoutSize);
+        TrackLayout firstLayout = cache.get(first);
+        cache.get(second);
+        cache.get(first);
+        cache.get(third);
+
+        TrackCache.CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.evictions());
+        assertEquals(2, statistics.entries());
+        assertEquals(2 * layoutSize, statistics.size());
+        assertSame(firstLayout, cache.get(first), "Recently used layout should be kept");
+        cache.get(second);
+        assertEquals(4, cache.getStatistics().misses(), "Least recently used layout should be evicted");
+    }
+
+    @Test
+    public void testInvalidate() throws IOException, InvalidFileFormatException {
+        TrackCache cache = new TrackCache(TrackCache.DEFAULT_MAX_SIZE);
+        File trackFile = writeTrack("track.txt", TRACK);
+        TrackLayout layout = cache.get(trackFile);
+
+        cache.invalidate(trackFile);
+        assertEquals(0, cache.getStatistics().entries());
+        assertEquals(0, cache.getStatistics().size());
+        assertNotSame(layout, cache.get(trackFile));
+    }
+}
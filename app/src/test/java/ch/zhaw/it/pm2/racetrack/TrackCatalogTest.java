@@ -0,0 +1,118 @@
+package ch.zhaw.it.pm2.racetrack;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrackCatalogTest {
+
+    private File directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("track-catalog").toFile();
+        directory.deleteOnExit();
+        new File(directory, TrackCatalog.CATALOG_FILE_NAME).deleteOnExit();
+        writeTrack("one-car.txt", "#####\n#a >#\n#####\n");
+        writeTrack("two-cars.txt", "#####\n#ab^#\n#<  #\n#####\n");
+        writeTrack("invalid.txt", "#####\n#   #\n#####\n");
+    }
+
+    private File writeTrack(String name, String content) throws IOException {
+        File trackFile = new File(directory, name);
+        trackFile.deleteOnExit();
+        Files.writeString(trackFile.toPath(), content);
+        return trackFile;
+    }
+
+    @Test
+    public void testMetadataOfTracks() throws IOException {
+        TrackCatalog catalog = TrackCatalog.open(directory);
+
+        List<TrackCatalog.TrackInfo> tracks = catalog.getTracks();
+        assertEquals(3, tracks.size());
+        assertEquals("invalid.txt", tracks.get(0).name());
+        assertFalse(tracks.get(0).isValid());
+
+        TrackCatalog.TrackInfo twoCars = tracks.get(2);
+        assertEquals("two-cars.txt", twoCars.name());
+        assertEquals(5, twoCars.width());
+        assertEquals(4, twoCars.height());
+        assertEquals(2, twoCars.carCount());
+        assertEquals(Set.of(SpaceType.FINISH_LEFT, SpaceType.FINISH_UP), twoCars.finishTypes());
+        assertEquals(new File(directory, "two-cars.txt"), catalog.getTrackFile(twoCars));
+
+        List<TrackCatalog.TrackInfo> multiplayer = catalog.find(info -> info.carCount() >= 2);
+        assertEquals(List.of(twoCars), multiplayer);
+        assertEquals(2, catalog.find(info -> true).size(), "Invalid tracks should not be found");
+    }
+
+    @Test
+    public void testCatalogIsPersisted() throws IOException {
+        TrackCatalog catalog = TrackCatalog.open(directory);
+        assertTrue(new File(directory, TrackCatalog.CATALOG_FILE_NAME).isFile());
+
+        TrackCatalog reopened = new TrackCatalog(directory);
+        assertEquals(catalog.getTracks(), reopened.getTracks());
+        assertEquals(0, reopened.refresh(), "Unchanged tracks should not be parsed again");
+    }
+
+    @Test
+    public void testRefreshOnlyScansChangedFiles() throws IOException {
+        TrackCatalog.open(directory);
+        File changed = writeTrack("one-car.txt", "######\n#ab >#\n######\n");
+        assertTrue(changed.setLastModified(changed.lastModified() + 10_000));
+        writeTrack("new.txt", "####\n#a>#\n####\n");
+        assertTrue(new File(directory, "invalid.txt").delete());
+
+        TrackCatalog catalog = new TrackCatalog(directory);
+        assertEquals(2, catalog.refresh());
+        List<TrackCatalog.TrackInfo> tracks = catalog.getTracks();
+        assertEquals(List.of("new.txt", "one-car.txt", "two-cars.txt"),
+            tracks.stream().map(TrackCatalog.TrackInfo::name).toList());
+        assertEquals(2, tracks.get(1).carCount());
+    }
+
+    @Test
+    public void testTouchedFileIsNotParsedAgain() throws IOException {
+        TrackCatalog.open(directory);
+        File touched = new File(directory, "two-cars.txt");
+        assertTrue(touched.setLastModified(touched.lastModified() + 10_000));
+
+        TrackCatalog catalog = new TrackCatalog(directory);
+        assertEquals(0, catalog.refresh(), "A file with the same checksum should not be parsed again");
+        TrackCatalog.TrackInfo info = catalog.getTracks().get(2);
+        assertEquals(touched.lastModified(), info.lastModified());
+        assertEquals(2, info.carCount());
+        catalog.save();
+        assertEquals(0, new TrackCatalog(directory).refresh());
+    }
+
+    @Test
+    public void testTrackWithTooManyCarsIsInvalid() throws IOException {
+        writeTrack("ten-cars.txt", "############\n#abcdefghij#\n#>         #\n############\n");
+
+        TrackCatalog catalog = TrackCatalog.open(directory);
+        TrackCatalog.TrackInfo tenCars = catalog.getTracks().stream()
+            .filter(info -> info.name().equals("ten-cars.txt")).findFirst().orElseThrow();
+        assertFalse(tenCars.isValid());
+        assertFalse(catalog.find(info -> true).contains(tenCars));
+    }
+
+    @Test
+    public void testCorruptCatalogIsRebuilt() throws IOException {
+        Files.writeString(new File(directory, TrackCatalog.CATALOG_FILE_NAME).toPath(),
+            "# racetrack track catalog v2\nnot a catalog line\n");
+
+        TrackCatalog catalog = new TrackCatalog(directory);
+        assertTrue(catalog.getTracks().isEmpty());
+        assertEquals(3, catalog.refresh());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,6 +46,107 @@ public class TrackTest {
         assertEquals(expectedCar.getPosition(), track.getCar(0).getPosition());
     }
 
+    @Test
+    public void testCarIndexFollowsFileOrder() throws IOException, InvalidFileFormatException {
+        Track quarterMile = new Track(new File(new Config().getTrackDirectory(), "quarter-mile.txt"));
+        assertEquals('§', quarterMile.getCar(0).getId());
+        assertEquals('@', quarterMile.getCar(1).getId());
+        assertEquals(0, quarterMile.getCarIndex('§'));
+        assertEquals(1, quarterMile.getCarIndex('@'));
+        assertEquals(-1, quarterMile.getCarIndex('a'));
+    }
+
+    @Test
+    public void testOccupancyFollowsCarMoves() {
+        Car carA = track.getCar(0);
+        carA.setVelocity(new PositionVector(-2, 0));
+        carA.move();
+
+        assertEquals(-1, track.getCarIndexAt(24, 22));
+        assertEquals(0, track.getCarIndexAt(22, 22));
+        assertEquals('a', track.getCharRepresentationAtPosition(22, 22));
+        assertEquals(' ', track.getCharRepresentationAtPosition(22, 24));
+        assertTrue(track.isOccupiedByOtherActiveCar(22, 22, 1));
+        assertFalse(track.isOccupiedByOtherActiveCar(22, 22, 0));
+
+        carA.crash(carA.getPosition());
+        assertEquals(Track.CRASH_INDICATOR, track.getCharRepresentationAtPosition(22, 22));
+        assertFalse(track.isOccupiedByOtherActiveCar(22, 22, 1), "Crashed cars should not cause collisions");
+    }
+
+    @Test
+    public void testTrackWithMoreThanMaxCars() throws IOException, InvalidFileFormatException {
+        String carIds = "abcdefghijklmnopqrst";
+        File trackFile = File.createTempFile("many-cars", ".txt");
+        trackFile.deleteOnExit();
+        Files.writeString(trackFile.toPath(), "#".repeat(23) + "\n#" + carIds + "<#\n" + "#".repeat(23) + "\n");
+
+        assertThrows(InvalidFileFormatException.class, () -> new Track(trackFile));
+        Track manyCars = new Track(trackFile, carIds.length());
+        assertEquals(carIds.length(), manyCars.getCarCount());
+        for (int i = 0; i < carIds.length(); i++) {
+            assertEquals(i, manyCars.getCarIndexAt(i + 1, 1));
+        }
+    }
+
+    @Test
+    public void testTracksShareLayoutButNotCars() {
+        TrackLayout layout = track.getLayout();
+        Track other = new Track(layout);
+        assertSame(layout, other.getLayout());
+        assertEquals(track.toString(), other.toString());
+
+        Car car = other.getCar(0);
+        PositionVector start = car.getPosition();
+        car.accelerate(Direction.RIGHT);
+        car.move();
+        car.crash(car.getPosition());
+
+        assertEquals(start, track.getCar(0).getPosition());
+        assertFalse(track.getCar(0).isCrashed());
+        assertEquals(0, track.getCarIndexAt(start.getX(), start.getY()));
+        assertEquals(-1, other.getCarIndexAt(start.getX(), start.getY()));
+        assertEquals(layout.getStartPosition(0), start);
+    }
+
+    @Test
+    public void testParseSkipsLeadingBlankLinesAndStopsAtEmptyLine() throws IOException, InvalidFileFormatException {
+        File trackFile = File.createTempFile("blank-lines", ".txt");
+        trackFile.deleteOnExit();
+        Files.writeString(trackFile.toPath(), "\r\n \t\t \r\n#####\r\n#a >#\r\n#####\r\n\r\nnot part of the track\r\n");
+
+        Track parsed = new Track(trackFile);
+        assertEquals(5, parsed.getWidth());
+        assertEquals(3, parsed.getHeight());
+        assertEquals(1, parsed.getCarCount());
+        assertEquals(new PositionVector(1, 1), parsed.getCar(0).getPosition());
+        assertEquals(SpaceType.TRACK, parsed.spaceTypeAt(1, 1));
+        assertEquals(SpaceType.FINISH_RIGHT, parsed.spaceTypeAt(3, 1));
+        assertEquals(15, parsed.getParseStatistics().cells());
+    }
+
+    @Test
+    public void testParseRejectsInvalidTracks() throws IOException {
+        String[] invalidTracks = {"", "\n\n", "#####\n#   #\n#####\n", "#####\n#a  #\n####\n", "#####\n#a a#\n#####\n"};
+        for (String content: invalidTracks) {
+            File trackFile = File.createTempFile("invalid", ".txt");
+            trackFile.deleteOnExit();
+            Files.writeString(trackFile.toPath(), content);
+            assertThrows(InvalidFileFormatException.class, () -> new Track(trackFile), content);
+        }
+    }
+
+    @Test
+    public void testParseNonAsciiCarId() throws IOException, InvalidFileFormatException {
+        File trackFile = File.createTempFile("non-ascii", ".txt");
+        trackFile.deleteOnExit();
+        Files.writeString(trackFile.toPath(), "####\n#é>#\n####\n");
+
+        Track parsed = new Track(trackFile);
+        assertEquals(4, parsed.getWidth());
+        assertEquals('é', parsed.getCar(0).getId());
+    }
+
     @Test
     public void testGetSpaceTypeAtPosition() {
         PositionVector position = new PositionVector(0, 0);
@@ -52,6 +154,51 @@ public class TrackTest {
         assertEquals(expectedSpaceType, track.getSpaceTypeAtPosition(position));
     }
 
+    @Test
+    public void testSpaceTypeAt() {
+        assertEquals(SpaceType.TRACK, track.spaceTypeAt(24, 22), "Car start positions are track spaces");
+        assertEquals(SpaceType.FINISH_RIGHT, track.spaceTypeAt(22, 23));
+        assertEquals(SpaceType.WALL, track.spaceTypeAt(-1, 5), "Positions outside the track are walls");
+        assertEquals(SpaceType.WALL, track.spaceTypeAt(5, track.getHeight()), "Positions outside the track are walls");
+        assertEquals(track.spaceTypeAt(22, 23), track.getTrack()[23][22]);
+    }
+
+    @Test
+    public void testDistanceToFinish() {
+        assertEquals(0, track.getDistanceToFinish(22, 22), "Finish positions have distance 0");
+        assertEquals(1, track.getDistanceToFinish(21, 22), "The finish line is entered from the left");
+        assertTrue(track.getDistanceToFinish(23, 22) > 50, "Positions right of the finish line have to go around the track");
+        assertEquals(Track.UNREACHABLE, track.getDistanceToFinish(0, 0), "Walls can not reach the finish line");
+        assertEquals(Track.UNREACHABLE, track.getDistanceToFinish(-1, 22), "Positions outside can not reach the finish line");
+    }
+
+    @Test
+    public void testClearance() {
+        assertEquals(0, track.getClearance(0, 0), "Walls have no clearance");
+        assertEquals(0, track.getClearance(22, 22), "Finish positions have no clearance");
+        assertEquals(0, track.getClearance(-1, 22), "Positions outside have no clearance");
+        assertEquals(1, track.getClearance(6, 22), "Positions next to a wall have clearance 1");
+        assertEquals(1, track.getClearance(21, 22), "Positions next to the finish line have clearance 1");
+        assertEquals(2, track.getClearance(20, 23));
+    }
+
+    @Test
+    public void testClearanceMatchesDistanceToNearestObstacle() {
+        for (int y = 0; y < track.getHeight(); y++) {
+            for (int x = 0; x < track.getWidth(); x++) {
+                int expected = Math.min(Math.min(x + 1, track.getWidth() - x), Math.min(y + 1, track.getHeight() - y));
+                for (int oy = 0; oy < track.getHeight(); oy++) {
+                    for (int ox = 0; ox < track.getWidth(); ox++) {
+                        if (track.spaceTypeAt(ox, oy) != SpaceType.TRACK) {
+                            expected = Math.min(expected, Math.max(Math.abs(ox - x), Math.abs(oy - y)));
+                        }
+                    }
+                }
+                assertEquals(expected, track.getClearance(x, y), "Clearance of (" + x + ", " + y + ")");
+            }
+        }
+    }
+
     @Test
     public void testGetCharRepresentationAtPosition() {
         char expectedChar = '#';